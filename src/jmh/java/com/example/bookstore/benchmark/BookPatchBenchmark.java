@@ -0,0 +1,111 @@
+package com.example.bookstore.benchmark;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.service.BookService;
+import com.example.bookstore.service.dto.BookDTO;
+import com.example.bookstore.service.mapper.BookMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Version;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A PATCH of a book against the embedded database:
+ * <ul>
+ *     <li>{@code entityUpdate}: {@code BookServiceImpl.updateBookByFields}, which converts and validates the values
+ *     through the precompiled field table, reads the book and flushes a versioned UPDATE of the changed columns</li>
+ *     <li>{@code reflection}: the path the service used to run, which looks up and opens every field by reflection,
+ *     assigns the raw JSON values and saves the book with {@code saveAndFlush}</li>
+ * </ul>
+ * Both run a single transaction per patch. The service also drops the book from its own cache and queues it for the
+ * search index, which the baseline leaves out. {@code cachedReads} of other books are made after every patch,
+ * so the score includes what the patch costs the readers of the second-level cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookPatchBenchmark {
+
+    private static final int BOOKS = 10_000;
+
+    @Param({"title", "all"})
+    private String fields;
+
+    @Param({"0", "10"})
+    private int cachedReads;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private BookRepository bookRepository;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+    private Map<String, Object> patch;
+    private long next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = EmbeddedBookstore.start();
+        EmbeddedBookstore.seedBooks(context, BOOKS);
+        bookService = context.getBean(BookService.class);
+        bookRepository = context.getBean(BookRepository.class);
+        entityManager = context.getBean(EntityManager.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        patch = fields.equals("title")
+                ? Map.of("title", "A New Title")
+                : Map.of("title", "A New Title", "author", "Another Author", "price", 14.5);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BookDTO entityUpdate() {
+        BookDTO book = bookService.updateBookByFields(nextId(), patch);
+        readOthers();
+        return book;
+    }
+
+    @Benchmark
+    public BookDTO reflection() {
+        long id = nextId();
+        BookDTO book = transactionTemplate.execute(status -> {
+            Book existing = bookRepository.findById(id).orElseThrow();
+            patch.forEach((key, value) -> {
+                Field field = ReflectionUtils.findField(Book.class, key);
+                if (field != null && !field.isAnnotationPresent(Version.class)) {
+                    field.setAccessible(true);
+                    ReflectionUtils.setField(field, existing, value);
+                }
+            });
+            return BookMapper.toBookDTO(bookRepository.saveAndFlush(existing));
+        });
+        readOthers();
+        return book;
+    }
+
+    private void readOthers() {
+        for (int i = 0; i < cachedReads; i++) {
+            long id = BOOKS - i;
+            transactionTemplate.executeWithoutResult(status -> entityManager.find(Book.class, id));
+        }
+    }
+
+    // Patches the books in turn, and leaves the last ones to the cached reads
+    private long nextId() {
+        return 1 + next++ % (BOOKS - 100);
+    }
+
+}
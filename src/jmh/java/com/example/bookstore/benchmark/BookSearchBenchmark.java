@@ -0,0 +1,93 @@
+package com.example.bookstore.benchmark;
+
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.service.BookSearchService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * First page of a title/author search, answered by the in-process index and by the LIKE query it replaces.
+ * Titles and authors are made of pseudo-words from a fixed syllable set, so a short query matches many books
+ * and a longer one matches few. "ka" is below the minimum prefix length of the index, so it only matches whole words.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookSearchBenchmark {
+
+    private static final String[] SYLLABLES = {"ka", "lo", "mi", "ra", "ten", "dor", "bel", "sha", "vin", "quo",
+            "ne", "tu", "par", "gol", "ri", "sen", "ma", "zo", "lin", "eth"};
+    private static final int INSERT_BATCH_SIZE = 10_000;
+    private static final PageRequest FIRST_PAGE = PageRequest.of(0, 20);
+
+    @Param({"10000", "100000", "1000000"})
+    private int books;
+
+    @Param({"ka", "kal", "dorbel", "shavin ra"})
+    private String query;
+
+    private ConfigurableApplicationContext context;
+    private BookSearchService bookSearchService;
+    private BookRepository bookRepository;
+    private String likePattern;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = EmbeddedBookstore.start();
+        seedCatalog(context.getBean(JdbcTemplate.class), books);
+        bookSearchService = context.getBean(BookSearchService.class);
+        bookRepository = context.getBean(BookRepository.class);
+        bookSearchService.rebuildIndex();
+        likePattern = "%" + query.toLowerCase(Locale.ROOT) + "%";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object index() {
+        return bookSearchService.searchBooks(query, 0, FIRST_PAGE.getPageSize());
+    }
+
+    @Benchmark
+    public Object like() {
+        return bookRepository.searchByTitleOrAuthor(likePattern, FIRST_PAGE);
+    }
+
+    private static void seedCatalog(JdbcTemplate jdbc, int count) {
+        SplittableRandom random = new SplittableRandom(42);
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+
+        for (long id = 1; id <= count; id++) {
+            String title = word(random) + " " + word(random) + " " + word(random);
+            String author = word(random) + " " + word(random);
+            batch.add(new Object[]{id, title, author, 5 + random.nextInt(9_500) / 100.0});
+            if (batch.size() == INSERT_BATCH_SIZE || id == count) {
+                jdbc.batchUpdate("insert into books (id, title, author, price, version) values (?, ?, ?, ?, 0)", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private static String word(SplittableRandom random) {
+        StringBuilder word = new StringBuilder();
+        for (int i = 1 + random.nextInt(3); i >= 0; i--) {
+            word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.example.bookstore.benchmark;
+
+import com.example.bookstore.service.CartService;
+import com.example.bookstore.service.dto.CartDTO;
+import com.example.bookstore.service.dto.ItemMap;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CartServiceImpl.calculateTotalPrice against the embedded database, over a pool of carts
+ * so the book cache sees a realistic spread of ids.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartPricingBenchmark {
+
+    private static final int CARTS = 256;
+
+    @Param({"10000", "100000", "1000000"})
+    private int books;
+
+    @Param({"1", "20", "200"})
+    private int lines;
+
+    private ConfigurableApplicationContext context;
+    private CartService cartService;
+    private long[] cartIds;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = EmbeddedBookstore.start();
+        EmbeddedBookstore.seedBooks(context, books);
+        cartService = context.getBean(CartService.class);
+
+        long userId = EmbeddedBookstore.seedUser(context);
+        SplittableRandom random = new SplittableRandom(7);
+        cartIds = new long[CARTS];
+        for (int i = 0; i < CARTS; i++) {
+            cartIds[i] = cartService.creatCart(CartDTO.builder()
+                    .userId(userId)
+                    .books(ItemMap.of(EmbeddedBookstore.randomLines(random, books, lines)))
+                    .build()).getCartId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Double calculateTotalPrice() {
+        next = (next + 1) % CARTS;
+        return cartService.calculateTotalPrice(cartIds[next]);
+    }
+
+}
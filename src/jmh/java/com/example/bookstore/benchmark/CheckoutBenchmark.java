@@ -0,0 +1,68 @@
+package com.example.bookstore.benchmark;
+
+import com.example.bookstore.model.Order;
+import com.example.bookstore.service.CartService;
+import com.example.bookstore.service.OrderService;
+import com.example.bookstore.service.dto.CartDTO;
+import com.example.bookstore.service.dto.ItemMap;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OrderServiceImpl.convertCartToOrder against the embedded database. A fresh cart is created
+ * before every invocation, outside of the measured time, since checkout deletes it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckoutBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int books;
+
+    @Param({"1", "20", "200"})
+    private int lines;
+
+    private ConfigurableApplicationContext context;
+    private CartService cartService;
+    private OrderService orderService;
+    private SplittableRandom random;
+    private long userId;
+    private long cartId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = EmbeddedBookstore.start();
+        EmbeddedBookstore.seedBooks(context, books);
+        cartService = context.getBean(CartService.class);
+        orderService = context.getBean(OrderService.class);
+        userId = EmbeddedBookstore.seedUser(context);
+        random = new SplittableRandom(11);
+    }
+
+    @Setup(Level.Invocation)
+    public void createCart() {
+        cartId = cartService.creatCart(CartDTO.builder()
+                .userId(userId)
+                .books(ItemMap.of(EmbeddedBookstore.randomLines(random, books, lines)))
+                .build()).getCartId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Order> convertCartToOrder() {
+        return orderService.convertCartToOrder(userId, cartId);
+    }
+
+}
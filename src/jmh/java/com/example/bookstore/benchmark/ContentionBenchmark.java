@@ -0,0 +1,138 @@
+package com.example.bookstore.benchmark;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.retry.ConflictRetryPolicy;
+import com.example.bookstore.service.BookService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Concurrent writers that all change the price of the same book, against the embedded database:
+ * <ul>
+ *     <li>{@code patch}: the PATCH path without If-Match, a versioned update of the changed columns that the
+ *     service retries on conflict</li>
+ *     <li>{@code optimisticWithRetry}: load, change and commit the versioned entity, retried on conflict
+ *     by the {@link ConflictRetryPolicy}</li>
+ *     <li>{@code pessimistic}: load under a row lock (SELECT ... FOR UPDATE), change and commit</li>
+ * </ul>
+ * Every invocation makes {@value #WRITES} writes spread over the writers, so the score is writes per second.
+ * The {@code failed} counter is the rate of writes that still failed, after every retry for the optimistic one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContentionBenchmark {
+
+    static final int WRITES = 256;
+
+    private static final long BOOK_ID = 1L;
+
+    @Param({"1", "8", "64"})
+    private int writers;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+    private ConflictRetryPolicy retryPolicy;
+    private ExecutorService executor;
+    private final AtomicLong prices = new AtomicLong();
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Failures {
+
+        public long failed;
+
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = EmbeddedBookstore.start();
+        EmbeddedBookstore.seedBooks(context, 1);
+        bookService = context.getBean(BookService.class);
+        entityManager = context.getBean(EntityManager.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        retryPolicy = context.getBean(ConflictRetryPolicy.class);
+        executor = Executors.newFixedThreadPool(writers);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WRITES)
+    public void patch(Failures failures) throws InterruptedException {
+        failures.failed += write(price -> bookService.updateBookByFields(BOOK_ID, Map.of("price", price)));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WRITES)
+    public void optimisticWithRetry(Failures failures) throws InterruptedException {
+        failures.failed += write(price -> retryPolicy.execute("ContentionBenchmark.optimisticWithRetry",
+                () -> transactionTemplate.execute(status -> {
+                    entityManager.find(Book.class, BOOK_ID).setPrice(price);
+                    return null;
+                })));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WRITES)
+    public void pessimistic(Failures failures) throws InterruptedException {
+        failures.failed += write(price -> transactionTemplate.executeWithoutResult(status ->
+                entityManager.find(Book.class, BOOK_ID, LockModeType.PESSIMISTIC_WRITE).setPrice(price)));
+    }
+
+    /**
+     * Runs {@value #WRITES} writes on the writer threads, each with a price no other write used
+     * @return Number of writes that failed
+     */
+    private long write(LongConsumer update) throws InterruptedException {
+        List<Callable<Long>> tasks = new ArrayList<>(writers);
+        for (int writer = 0; writer < writers; writer++) {
+            tasks.add(() -> {
+                long failed = 0;
+                for (int i = 0; i < WRITES / writers; i++) {
+                    try {
+                        update.accept(prices.incrementAndGet() % 1_000_000);
+                    } catch (RuntimeException e) {
+                        failed++;
+                    }
+                }
+                return failed;
+            });
+        }
+        long failed = 0;
+        for (Future<Long> result : executor.invokeAll(tasks)) {
+            try {
+                failed += result.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        return failed;
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.example.bookstore.benchmark;
+
+import com.example.bookstore.BookstoreApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Starts the application against the embedded test database and seeds it with benchmark data.
+ */
+final class EmbeddedBookstore {
+
+    private static final int INSERT_BATCH_SIZE = 10_000;
+
+    private EmbeddedBookstore() {
+    }
+
+    static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(BookstoreApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(Map.of(
+                        "logging.level.root", "warn",
+                        "spring.jpa.properties.hibernate.generate_statistics", "false"))
+                .run();
+    }
+
+    /**
+     * Inserts books with ids 1..count using plain JDBC batches, far faster than going through JPA
+     */
+    static void seedBooks(ConfigurableApplicationContext context, int count) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        SplittableRandom random = new SplittableRandom(42);
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+
+        for (long id = 1; id <= count; id++) {
+            batch.add(new Object[]{id, "Title " + id, "Author " + (id % 5_000), 5 + random.nextInt(9_500) / 100.0});
+            if (batch.size() == INSERT_BATCH_SIZE || id == count) {
+                jdbc.batchUpdate("insert into books (id, title, author, price, version) values (?, ?, ?, ?, 0)", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    static long seedUser(ConfigurableApplicationContext context) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        jdbc.update("insert into users (username, password) values (?, ?)", "benchmark-" + System.nanoTime(), "secret");
+        return jdbc.queryForObject("select max(id) from users", Long.class);
+    }
+
+    /**
+     * Random cart content of distinct books drawn from ids 1..books
+     */
+    static Map<Long, Integer> randomLines(SplittableRandom random, int books, int lines) {
+        Map<Long, Integer> items = new java.util.HashMap<>();
+        while (items.size() < lines) {
+            items.put(1L + random.nextInt(books), 1 + random.nextInt(3));
+        }
+        return items;
+    }
+
+}
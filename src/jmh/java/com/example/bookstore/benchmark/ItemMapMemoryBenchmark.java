@@ -0,0 +1,82 @@
+package com.example.bookstore.benchmark;
+
+import com.example.bookstore.service.dto.ItemMap;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap cost of cart line items held as {@code Map<Long, Integer>} and as {@link ItemMap}.
+ * Run with the GC profiler and divide {@code gc.alloc.rate.norm} by the number of lines to get bytes per line item:
+ * {@code mvn -Pbenchmark verify -Djmh.args="ItemMapMemoryBenchmark -prof gc"}.
+ * The {@code retained*} benchmarks build the items with their final capacity, so they allocate what is kept;
+ * the {@code json*} benchmarks read a cart's items the way a request body is read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemMapMemoryBenchmark {
+
+    private static final TypeReference<Map<Long, Integer>> BOXED = new TypeReference<>() {
+    };
+
+    @Param({"1", "20", "200"})
+    private int lines;
+
+    private ObjectMapper objectMapper;
+    private long[] bookIds;
+    private int[] quantities;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        Map<Long, Integer> items = EmbeddedBookstore.randomLines(new SplittableRandom(42), 1_000_000, lines);
+        bookIds = new long[lines];
+        quantities = new int[lines];
+        int i = 0;
+        for (Map.Entry<Long, Integer> item : items.entrySet()) {
+            bookIds[i] = item.getKey();
+            quantities[i++] = item.getValue();
+        }
+        json = objectMapper.writeValueAsBytes(items);
+    }
+
+    @Benchmark
+    public Map<Long, Integer> retainedBoxed() {
+        Map<Long, Integer> items = HashMap.newHashMap(lines);
+        for (int i = 0; i < lines; i++) {
+            items.put(bookIds[i], quantities[i]);
+        }
+        return items;
+    }
+
+    @Benchmark
+    public ItemMap retainedItemMap() {
+        ItemMap items = new ItemMap(lines);
+        for (int i = 0; i < lines; i++) {
+            items.put(bookIds[i], quantities[i]);
+        }
+        return items;
+    }
+
+    @Benchmark
+    public Map<Long, Integer> jsonBoxed() throws Exception {
+        return objectMapper.readValue(json, BOXED);
+    }
+
+    @Benchmark
+    public ItemMap jsonItemMap() throws Exception {
+        return objectMapper.readValue(json, ItemMap.class);
+    }
+
+}
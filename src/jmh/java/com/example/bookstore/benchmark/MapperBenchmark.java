@@ -0,0 +1,102 @@
+package com.example.bookstore.benchmark;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.model.Cart;
+import com.example.bookstore.model.Order;
+import com.example.bookstore.model.OrderLine;
+import com.example.bookstore.model.User;
+import com.example.bookstore.service.dto.BookDTO;
+import com.example.bookstore.service.dto.CartDTO;
+import com.example.bookstore.service.dto.OrderDTO;
+import com.example.bookstore.service.mapper.BookMapper;
+import com.example.bookstore.service.mapper.CartMapper;
+import com.example.bookstore.service.mapper.OrderMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pure in-memory cost of the static mappers and of JSON (de)serialization of the DTOs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param({"1", "20", "200"})
+    private int lines;
+
+    private ObjectMapper objectMapper;
+    private Book book;
+    private Cart cart;
+    private Order order;
+    private CartDTO cartDTO;
+    private OrderDTO orderDTO;
+    private byte[] cartJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        User user = new User(7L, "reader", "secret");
+        SplittableRandom random = new SplittableRandom(42);
+
+        book = new Book(1L, "The Title", "The Author", 12.5);
+        cart = new Cart(3L, EmbeddedBookstore.randomLines(random, 1_000_000, lines), user);
+        order = Order.builder()
+                .orderId(5L)
+                .user(user)
+                .lines(orderLines(EmbeddedBookstore.randomLines(random, 1_000_000, lines)))
+                .total(99.0)
+                .orderDate(LocalDateTime.now())
+                .build();
+        cartDTO = CartMapper.toCartDTO(cart);
+        orderDTO = OrderMapper.toOrderDTO(order);
+        cartJson = objectMapper.writeValueAsBytes(cartDTO);
+    }
+
+    @Benchmark
+    public BookDTO bookToDTO() {
+        return BookMapper.toBookDTO(book);
+    }
+
+    @Benchmark
+    public CartDTO cartToDTO() {
+        return CartMapper.toCartDTO(cart);
+    }
+
+    @Benchmark
+    public OrderDTO orderToDTO() {
+        return OrderMapper.toOrderDTO(order);
+    }
+
+    @Benchmark
+    public byte[] serializeCart() throws Exception {
+        return objectMapper.writeValueAsBytes(cartDTO);
+    }
+
+    @Benchmark
+    public byte[] serializeOrder() throws Exception {
+        return objectMapper.writeValueAsBytes(orderDTO);
+    }
+
+    @Benchmark
+    public CartDTO deserializeCart() throws Exception {
+        return objectMapper.readValue(cartJson, CartDTO.class);
+    }
+
+    private static Map<Long, OrderLine> orderLines(Map<Long, Integer> quantities) {
+        Map<Long, OrderLine> lines = new HashMap<>();
+        quantities.forEach((bookId, quantity) -> lines.put(bookId, new OrderLine(quantity, 12.5, "The Title")));
+        return lines;
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.example.bookstore.admission;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Shows and changes the admission settings at runtime, at /actuator/admission on the management port.
+ * A POST with any subset of the settings replaces them at once, and the buckets follow the new rate immediately.
+ * Writes are refused unless management.endpoint.admission.access is unrestricted.
+ */
+@Component
+@Endpoint(id = "admission")
+public class AdmissionEndpoint {
+
+    private final AdmissionInterceptor admissionInterceptor;
+
+    public AdmissionEndpoint(AdmissionInterceptor admissionInterceptor) {
+        this.admissionInterceptor = admissionInterceptor;
+    }
+
+    @ReadOperation
+    public Map<String, Object> settings() {
+        AdmissionSettings current = admissionInterceptor.getSettings();
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("enabled", current.enabled());
+        settings.put("requestsPerSecond", current.requestsPerSecond());
+        settings.put("burst", current.burst());
+        settings.put("maxPoolWait", current.maxPoolWait().toString());
+        settings.put("sampleInterval", current.sampleInterval().toString());
+        settings.put("retryAfter", current.retryAfter().toString());
+        settings.put("trackedKeys", admissionInterceptor.trackedKeys());
+        return settings;
+    }
+
+    @WriteOperation
+    public Map<String, Object> update(@Nullable Boolean enabled, @Nullable Double requestsPerSecond,
+                                      @Nullable Integer burst, @Nullable Duration maxPoolWait,
+                                      @Nullable Duration sampleInterval, @Nullable Duration retryAfter) {
+        AdmissionSettings current = admissionInterceptor.getSettings();
+        admissionInterceptor.setSettings(new AdmissionSettings(
+                enabled != null ? enabled : current.enabled(),
+                requestsPerSecond != null ? requestsPerSecond : current.requestsPerSecond(),
+                burst != null ? burst : current.burst(),
+                maxPoolWait != null ? maxPoolWait : current.maxPoolWait(),
+                sampleInterval != null ? sampleInterval : current.sampleInterval(),
+                retryAfter != null ? retryAfter : current.retryAfter()));
+        return settings();
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.example.bookstore.admission;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Admission control in front of the write endpoints. A request is rejected with 429 and Retry-After when
+ * the connection pool has recently been making callers wait too long (load shedding), or when its user has used up
+ * the token bucket of the endpoint. Users are found by {@link RequestOwners}, from the path or from the cart or order
+ * the request changes. Every rejection is counted in {@code bookstore.admission.rejected}.
+ */
+@Slf4j
+@Component
+public class AdmissionInterceptor implements HandlerInterceptor {
+
+    static final String REJECTED = "bookstore.admission.rejected";
+
+    private final AtomicReference<AdmissionSettings> settings;
+    private final TokenBucketLimiter limiter;
+    private final PoolPressure poolPressure;
+    private final RequestOwners requestOwners;
+    private final MeterRegistry meterRegistry;
+
+    AdmissionInterceptor(MeterRegistry meterRegistry, RequestOwners requestOwners,
+                         @Value("${bookstore.admission.enabled:true}") boolean enabled,
+                         @Value("${bookstore.admission.requests-per-second:10}") double requestsPerSecond,
+                         @Value("${bookstore.admission.burst:20}") int burst,
+                         @Value("${bookstore.admission.max-pool-wait:250ms}") Duration maxPoolWait,
+                         @Value("${bookstore.admission.sample-interval:1s}") Duration sampleInterval,
+                         @Value("${bookstore.admission.retry-after:1s}") Duration retryAfter,
+                         @Value("${bookstore.admission.maximum-keys:100000}") int maximumKeys) {
+        this.settings = new AtomicReference<>(new AdmissionSettings(enabled, requestsPerSecond, burst, maxPoolWait,
+                sampleInterval, retryAfter));
+        this.limiter = new TokenBucketLimiter(maximumKeys);
+        this.poolPressure = new PoolPressure(meterRegistry);
+        this.requestOwners = requestOwners;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        AdmissionSettings current = settings.get();
+        if (!current.enabled() || !isWrite(request.getMethod())) {
+            return true;
+        }
+
+        long now = System.nanoTime();
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = request.getMethod() + " " + pattern;
+
+        if (!current.maxPoolWait().isZero()
+                && poolPressure.recentWaitNanos(now, current.sampleInterval().toNanos()) > current.maxPoolWait().toNanos()) {
+            return reject(response, endpoint, "shed", current.retryAfter().toNanos());
+        }
+
+        long wait = limiter.tryAcquire(requestOwners.keyOf(request) + " " + endpoint, now, current);
+        if (wait > 0) {
+            return reject(response, endpoint, "rate_limit", wait);
+        }
+        return true;
+    }
+
+    AdmissionSettings getSettings() {
+        return settings.get();
+    }
+
+    void setSettings(AdmissionSettings updated) {
+        settings.set(updated);
+        log.info("setSettings() - Admission settings changed to {}", updated);
+    }
+
+    int trackedKeys() {
+        return limiter.size();
+    }
+
+    private boolean reject(HttpServletResponse response, String endpoint, String reason, long retryAfterNanos)
+            throws IOException {
+        meterRegistry.counter(REJECTED, "reason", reason, "endpoint", endpoint).increment();
+
+        long seconds = Math.max(1, (retryAfterNanos + 999_999_999L) / 1_000_000_000L);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write("Error: Too many requests, retry after " + seconds + "s");
+        return false;
+    }
+
+    private static boolean isWrite(String method) {
+        return switch (method) {
+            case "POST", "PUT", "PATCH", "DELETE" -> true;
+            default -> false;
+        };
+    }
+
+}
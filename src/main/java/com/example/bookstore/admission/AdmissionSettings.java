@@ -0,0 +1,30 @@
+package com.example.bookstore.admission;
+
+import java.time.Duration;
+
+/**
+ * Current admission control settings. Replaced as a whole when they are changed at runtime
+ * @param enabled Whether write requests are limited and shed at all
+ * @param requestsPerSecond Sustained rate allowed per user and endpoint
+ * @param burst Requests a user may send at once to one endpoint after being idle
+ * @param maxPoolWait Mean connection wait above which write requests are shed, zero to never shed
+ * @param sampleInterval How often the connection wait is sampled
+ * @param retryAfter Retry-After sent with shed requests
+ */
+record AdmissionSettings(boolean enabled, double requestsPerSecond, int burst, Duration maxPoolWait,
+                         Duration sampleInterval, Duration retryAfter) {
+
+    AdmissionSettings {
+        if (!(requestsPerSecond > 0) || burst < 1) {
+            throw new IllegalArgumentException("Rate must be positive and burst at least 1");
+        }
+        if (maxPoolWait.isNegative() || sampleInterval.isNegative() || retryAfter.isNegative()) {
+            throw new IllegalArgumentException("Durations must not be negative");
+        }
+    }
+
+    long emissionIntervalNanos() {
+        return Math.max(1, (long) (1_000_000_000L / requestsPerSecond));
+    }
+
+}
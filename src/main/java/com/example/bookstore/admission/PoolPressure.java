@@ -0,0 +1,66 @@
+package com.example.bookstore.admission;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recent connection wait of the Hikari pools, taken from the meters Spring Boot registers for them.
+ * Each sample is the mean acquire time of the connections handed out since the previous sample. When nobody got
+ * a connection but threads are waiting for one, the pool is saturated and the whole interval counts as wait.
+ */
+class PoolPressure {
+
+    private static final String ACQUIRE = "hikaricp.connections.acquire";
+    private static final String PENDING = "hikaricp.connections.pending";
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicLong lastSample = new AtomicLong(System.nanoTime());
+
+    private double lastTotalNanos;
+    private long lastCount;
+    private volatile long recentWaitNanos;
+
+    PoolPressure(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param now Current {@link System#nanoTime()}
+     * @param sampleIntervalNanos Minimum time between two samples
+     * @return Mean connection wait of the last sample, in nanoseconds
+     */
+    long recentWaitNanos(long now, long sampleIntervalNanos) {
+        long last = lastSample.get();
+        if (now - last >= sampleIntervalNanos && lastSample.compareAndSet(last, now)) {
+            sample(now - last);
+        }
+        return recentWaitNanos;
+    }
+
+    private synchronized void sample(long elapsedNanos) {
+        double totalNanos = 0;
+        long count = 0;
+        for (Timer timer : meterRegistry.find(ACQUIRE).timers()) {
+            totalNanos += timer.totalTime(TimeUnit.NANOSECONDS);
+            count += timer.count();
+        }
+        double pending = 0;
+        for (Gauge gauge : meterRegistry.find(PENDING).gauges()) {
+            pending += gauge.value();
+        }
+
+        long acquired = count - lastCount;
+        if (acquired > 0) {
+            recentWaitNanos = (long) ((totalNanos - lastTotalNanos) / acquired);
+        } else {
+            recentWaitNanos = pending > 0 ? elapsedNanos : 0;
+        }
+        lastTotalNanos = totalNanos;
+        lastCount = count;
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.example.bookstore.admission;
+
+import com.example.bookstore.repository.CartRepository;
+import com.example.bookstore.repository.OrderRepository;
+import com.example.bookstore.service.cache.BoundedCache;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Finds the user a write request acts for, so that admission buckets are kept per user whichever endpoint is called.
+ * The user is the {userId} path variable, or else the owner of the cart or order in the path. Owners never change,
+ * so they are cached. Requests without a known owner, such as creating a cart, are keyed by the client address.
+ */
+@Component
+class RequestOwners {
+
+    private final CartRepository cartRepository;
+    private final OrderRepository orderRepository;
+    private final BoundedCache<String, Long> owners;
+
+    RequestOwners(CartRepository cartRepository, OrderRepository orderRepository,
+                  @Value("${bookstore.admission.owners.maximum-size:100000}") int maximumSize,
+                  @Value("${bookstore.admission.owners.time-to-live:1h}") Duration timeToLive) {
+        this.cartRepository = cartRepository;
+        this.orderRepository = orderRepository;
+        this.owners = new BoundedCache<>(maximumSize, timeToLive);
+    }
+
+    /**
+     * @return "user:" and the user id, or "address:" and the client address when the request has no known owner
+     */
+    @SuppressWarnings("unchecked")
+    String keyOf(HttpServletRequest request) {
+        Map<String, String> variables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        Long owner = null;
+        if (variables != null) {
+            String pattern = String.valueOf(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE));
+            if (variables.containsKey("userId")) {
+                owner = parse(variables.get("userId"));
+            } else if (pattern.startsWith("/api/v1/carts/")) {
+                owner = owner("cart:", variables.get("cartId"), cartRepository::findUserIdById);
+            } else if (pattern.startsWith("/api/v1/order/")) {
+                owner = owner("order:", variables.get("id"), orderRepository::findUserIdById);
+            }
+        }
+        return owner != null ? "user:" + owner : "address:" + request.getRemoteAddr();
+    }
+
+    private Long owner(String kind, String variable, Function<Long, Optional<Long>> lookup) {
+        Long id = parse(variable);
+        if (id == null) {
+            return null;
+        }
+        String key = kind + id;
+        Long owner = owners.get(key);
+        if (owner == null) {
+            owner = lookup.apply(id).orElse(null);
+            if (owner != null) {
+                owners.put(key, owner);
+            }
+        }
+        return owner;
+    }
+
+    private static Long parse(String variable) {
+        try {
+            return variable == null ? null : Long.valueOf(variable);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+}
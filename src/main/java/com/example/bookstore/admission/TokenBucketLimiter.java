@@ -0,0 +1,66 @@
+package com.example.bookstore.admission;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets kept as a single timestamp each, the time at which the bucket would be full again
+ * (the generic cell rate algorithm). Taking a token is one compare-and-set on that timestamp, so the hot path
+ * takes no lock, and the bucket map is a concurrent hash map, so different keys do not contend.
+ */
+class TokenBucketLimiter {
+
+    private static final long SWEEP_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final int maximumKeys;
+    private final ConcurrentMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
+    TokenBucketLimiter(int maximumKeys) {
+        this.maximumKeys = maximumKeys;
+    }
+
+    /**
+     * Takes a token from the bucket of a key
+     * @param key Bucket key
+     * @param now Current {@link System#nanoTime()}
+     * @param settings Rate and burst of the bucket
+     * @return 0 if a token was taken, otherwise the nanoseconds until one is available
+     */
+    long tryAcquire(String key, long now, AdmissionSettings settings) {
+        long interval = settings.emissionIntervalNanos();
+        long tolerance = interval * (settings.burst() - 1);
+
+        AtomicLong full = buckets.get(key);
+        if (full == null) {
+            sweepIfCrowded(now);
+            full = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+
+        while (true) {
+            long current = full.get();
+            long start = current - now > 0 ? current : now;
+            long wait = start - now - tolerance;
+            if (wait > 0) {
+                return wait;
+            }
+            if (full.compareAndSet(current, start + interval)) {
+                return 0;
+            }
+        }
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    // A bucket that is full again holds no state worth keeping, so it is dropped once there are too many keys
+    private void sweepIfCrowded(long now) {
+        long last = lastSweep.get();
+        if (buckets.size() >= maximumKeys && now - last >= SWEEP_INTERVAL_NANOS && lastSweep.compareAndSet(last, now)) {
+            buckets.values().removeIf(full -> full.get() - now <= 0);
+        }
+    }
+
+}
@@ -1,16 +1,38 @@
 package com.example.bookstore.controller;
 
+import com.example.bookstore.service.BookImportService;
+import com.example.bookstore.service.BookSearchService;
 import com.example.bookstore.service.BookService;
 import com.example.bookstore.service.dto.BookDTO;
+import com.example.bookstore.service.dto.BookImportBatchDTO;
+import com.example.bookstore.service.dto.BookImportReportDTO;
+import com.example.bookstore.service.dto.CacheStatsDTO;
+import com.example.bookstore.service.dto.CursorPageDTO;
+import com.example.bookstore.service.dto.PageDTO;
+import com.example.bookstore.service.implementation.BookSearchServiceImpl;
 import com.example.bookstore.service.implementation.BookServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 
 /**
  * Controller for books
@@ -22,43 +44,162 @@ public class BookController {
 
     @Autowired
     private final BookService bookService;
+    private final BookImportService bookImportService;
+    private final BookSearchService bookSearchService;
+    private final ObjectMapper objectMapper;
 
-    public BookController(BookServiceImpl bookService) {
+    public BookController(BookServiceImpl bookService, BookImportService bookImportService,
+                          BookSearchServiceImpl bookSearchService, ObjectMapper objectMapper) {
         this.bookService = bookService;
+        this.bookImportService = bookImportService;
+        this.bookSearchService = bookSearchService;
+        this.objectMapper = objectMapper;
     }
 
     /**
      * Retrieves a list of all books.
+     * The catalog version is sent as the ETag, and a request whose If-None-Match still matches it
+     * gets a 304 without the books being loaded.
      *
-     * @return a list of all BookDTO objects.
+     * @param request the request, checked for If-None-Match.
+     * @return a ResponseEntity containing all BookDTO objects, or a 304 status if the client copy is current.
      */
     @GetMapping("/all")
-    public List<BookDTO> getAllBooks() {
+    public ResponseEntity<List<BookDTO>> getAllBooks(WebRequest request) {
 
         log.info("getAllBooks() - Request received.");
 
+        String etag = bookService.getCatalogVersion();
+        if (request.checkNotModified(etag)) {
+            log.info("getAllBooks() - Catalog not modified. Version: {}", etag);
+            return null;
+        }
+
         List<BookDTO> books = bookService.getAllBooks();
 
         log.info("getAllBooks() - Response prepared with {} books.", books.size());
-        return books;
+        return ResponseEntity.ok().eTag(etag).body(books);
+    }
+
+    /**
+     * Retrieves one page of books, sorted by the requested properties and then by ID.
+     *
+     * @param pageable the page number, size and sort (e.g. ?page=0&size=50&sort=title,asc).
+     * @return a page of BookDTO objects with the total number of books.
+     */
+    @GetMapping("/page")
+    public PageDTO<BookDTO> getBooksPage(@PageableDefault(size = 50) Pageable pageable) {
+
+        log.info("getBooksPage() - Request received. Page: {}, Size: {}", pageable.getPageNumber(), pageable.getPageSize());
+
+        PageDTO<BookDTO> page = bookService.getBooks(pageable);
+
+        log.info("getBooksPage() - Response prepared with {} books.", page.getItems().size());
+        return page;
+    }
+
+    /**
+     * Retrieves the books that follow a cursor, ordered by ID.
+     *
+     * @param after the ID of the last book of the previous page, omitted for the first page.
+     * @param size the maximum number of books to return.
+     * @return a page of BookDTO objects and the cursor of the next page, null on the last page.
+     */
+    @GetMapping("/scroll")
+    public CursorPageDTO<BookDTO> scrollBooks(@RequestParam(required = false) Long after,
+                                              @RequestParam(defaultValue = "50") int size) {
+
+        log.info("scrollBooks() - Request received. After: {}, Size: {}", after, size);
+
+        CursorPageDTO<BookDTO> page = bookService.getBooksAfter(after, size);
+
+        log.info("scrollBooks() - Response prepared with {} books. Next: {}", page.getItems().size(), page.getNext());
+        return page;
+    }
+
+    /**
+     * Exports the whole catalog as newline-delimited JSON, one book per line in ID order.
+     * Books are written as they are read, so the first line is sent right away and memory use stays constant.
+     *
+     * @return a ResponseEntity streaming every BookDTO.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportBooks() {
+
+        log.info("exportBooks() - Request received.");
+
+        StreamingResponseBody body = out -> {
+            long count = bookService.exportBooks(new NdjsonWriter<>(objectMapper, out));
+            log.info("exportBooks() - Export completed with {} books.", count);
+        };
+
+        return ResponseEntity.ok()
+                .contentType(NdjsonWriter.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+
+    /**
+     * Searches books by the words of their title and author. Every word of the query must match
+     * a word, or the start of a word, of the title or author.
+     *
+     * @param q the search text (e.g. ?q=tolk hobbit).
+     * @param page the page number.
+     * @param size the maximum number of books to return.
+     * @return a ResponseEntity containing a page of matching BookDTO objects, best match first.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<PageDTO<BookDTO>> searchBooks(@RequestParam String q,
+                                                        @RequestParam(defaultValue = "0") int page,
+                                                        @RequestParam(defaultValue = "20") int size) {
+
+        log.info("searchBooks() - Request received. Query: {}, Page: {}", q, page);
+
+        PageDTO<BookDTO> books = bookSearchService.searchBooks(q, page, size);
+
+        log.info("searchBooks() - Found {} books.", books.getTotalElements());
+        return ResponseEntity.ok(books);
+    }
+
+    /**
+     * Retrieves the hit, miss and eviction counters of the in-process book cache.
+     *
+     * @return a ResponseEntity containing the current CacheStatsDTO.
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<CacheStatsDTO> getCacheStats() {
+
+        log.info("getCacheStats() - Request received.");
+
+        return ResponseEntity.ok(bookService.getCacheStats());
     }
 
 
     /**
      * Retrieves a book by its ID.
+     * The book version is sent as the ETag. A request whose If-None-Match still matches it gets a 304,
+     * answered from the book cache without a query when the book is cached.
      *
      * @param id the ID of the book to retrieve.
-     * @return a ResponseEntity containing the BookDTO if found, or a 404 status if not found.
+     * @param request the request, checked for If-None-Match.
+     * @return a ResponseEntity containing the BookDTO if found, a 304 status if the client copy is current,
+     * or a 404 status if not found.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<BookDTO> getBookById(@PathVariable Long id) {
+    public ResponseEntity<BookDTO> getBookById(@PathVariable Long id, WebRequest request) {
 
         log.info("getBookById() - Request received. Book ID: {}", id);
 
+        Optional<Long> version = bookService.getBookVersion(id);
+        if (version.isPresent() && request.checkNotModified(String.valueOf(version.get()))) {
+            log.info("getBookById() - Book not modified. Book ID: {}", id);
+            return null;
+        }
+
         return bookService.getBookById(id)
                 .map(bookDTO -> {
                     log.info("getBookById() - Book found. Book ID: {}", id);
-                    return ResponseEntity.ok(bookDTO);
+                    return ResponseEntity.ok().eTag(String.valueOf(bookDTO.getVersion())).body(bookDTO);
                 })
                 .orElseGet(() -> {
                     log.warn("getBookById() - Book not found. Book ID: {}", id);
@@ -86,6 +227,53 @@ public class BookController {
     }
 
 
+    /**
+     * Imports a JSON array of books in batches.
+     * The response is newline-delimited JSON: one line per written batch as it completes, then a summary line.
+     *
+     * @param request the request whose body holds the JSON array of BookDTO objects.
+     * @param response the response the progress lines are written to.
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public void importBooksJson(HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        log.info("importBooksJson() - Request received.");
+
+        importBooks(request, response, bookImportService::importJson);
+    }
+
+    /**
+     * Imports CSV lines of title, author and price in batches.
+     * The response is newline-delimited JSON: one line per written batch as it completes, then a summary line.
+     *
+     * @param request the request whose body holds the CSV document, optionally starting with a header line.
+     * @param response the response the progress lines are written to.
+     */
+    @PostMapping(value = "/bulk", consumes = "text/csv")
+    public void importBooksCsv(HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        log.info("importBooksCsv() - Request received.");
+
+        importBooks(request, response, bookImportService::importCsv);
+    }
+
+    private void importBooks(HttpServletRequest request, HttpServletResponse response,
+                             BiFunction<InputStream, Consumer<BookImportBatchDTO>, BookImportReportDTO> importer) throws IOException {
+
+        response.setContentType(NdjsonWriter.APPLICATION_NDJSON.toString());
+        NdjsonWriter<Object> writer = new NdjsonWriter<>(objectMapper, response.getOutputStream());
+
+        BookImportReportDTO report = importer.apply(request.getInputStream(), batch -> {
+            writer.accept(batch);
+            writer.flush();
+        });
+        writer.accept(report);
+
+        log.info("importBooks() - Import finished. Rows: {}, imported: {}, rejected: {}",
+                report.getRows(), report.getImported(), report.getRejected());
+    }
+
+
     /**
      * Deletes a book by its ID.
      *
@@ -104,16 +292,31 @@ public class BookController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Updates some fields of a book.
+     * With an If-Match header the update only applies while the book still has that version.
+     *
+     * @param id the ID of the book to update.
+     * @param fields the new values by field name.
+     * @param ifMatch optional ETag of the book as the client last read it.
+     * @return a ResponseEntity containing the updated BookDTO, or a 409 status if the book changed in between.
+     */
     @PatchMapping("/{id}")
-    public ResponseEntity<BookDTO> updateBookByFields(@PathVariable Long id, @RequestBody Map<String, Object> fields) {
+    public ResponseEntity<BookDTO> updateBookByFields(@PathVariable Long id, @RequestBody Map<String, Object> fields,
+                                                      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false)
+                                                      String ifMatch) {
 
         log.info("updateBookByFields() - Request received. Book ID: {}", id);
 
-        BookDTO updatedBook = bookService.updateBookByFields(id, fields);
+        Long expectedVersion = EntityTags.expectedVersion(ifMatch);
+        // Without If-Match the update is retried when it races another one, with it the client has to decide
+        BookDTO updatedBook = expectedVersion == null
+                ? bookService.updateBookByFields(id, fields)
+                : bookService.updateBookByFields(id, fields, expectedVersion);
 
         log.info("updateBookByFields() - Book updated successfully. Book ID: {}", id);
 
-        return ResponseEntity.ok(updatedBook);
+        return ResponseEntity.ok().eTag(String.valueOf(updatedBook.getVersion())).body(updatedBook);
     }
 
 }
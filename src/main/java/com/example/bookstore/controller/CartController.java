@@ -2,13 +2,22 @@ package com.example.bookstore.controller;
 
 import com.example.bookstore.service.CartService;
 import com.example.bookstore.service.dto.CartDTO;
+import com.example.bookstore.service.dto.CartOperationDTO;
+import com.example.bookstore.service.dto.CartPricingDTO;
+import com.example.bookstore.service.dto.CursorPageDTO;
+import com.example.bookstore.service.dto.PageDTO;
 import com.example.bookstore.service.implementation.CartServiceImpl;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Controller for Cart
@@ -20,10 +29,12 @@ public class CartController {
 
     @Autowired
     private final CartService cartService;
+    private final IdempotentRequests idempotentRequests;
 
-    public CartController(CartServiceImpl cartService) {
+    public CartController(CartServiceImpl cartService, IdempotentRequests idempotentRequests) {
 
         this.cartService = cartService;
+        this.idempotentRequests = idempotentRequests;
     }
 
     /**
@@ -42,20 +53,66 @@ public class CartController {
         return carts ;
     }
 
+    /**
+     * Retrieves one page of carts, sorted by the requested properties and then by ID.
+     *
+     * @param pageable the page number, size and sort (e.g. ?page=0&size=50&sort=title,asc).
+     * @return a page of CartDTO objects with the total number of carts.
+     */
+    @GetMapping("/page")
+    public PageDTO<CartDTO> getCartsPage(@PageableDefault(size = 50) Pageable pageable) {
+
+        log.info("getCartsPage() - Request received. Page: {}, Size: {}", pageable.getPageNumber(), pageable.getPageSize());
+
+        PageDTO<CartDTO> page = cartService.getCarts(pageable);
+
+        log.info("getCartsPage() - Response prepared with {} carts.", page.getItems().size());
+        return page;
+    }
+
+    /**
+     * Retrieves the carts that follow a cursor, ordered by ID.
+     *
+     * @param after the ID of the last cart of the previous page, omitted for the first page.
+     * @param size the maximum number of carts to return.
+     * @return a page of CartDTO objects and the cursor of the next page, null on the last page.
+     */
+    @GetMapping("/scroll")
+    public CursorPageDTO<CartDTO> scrollCarts(@RequestParam(required = false) Long after,
+                                              @RequestParam(defaultValue = "50") int size) {
+
+        log.info("scrollCarts() - Request received. After: {}, Size: {}", after, size);
+
+        CursorPageDTO<CartDTO> page = cartService.getCartsAfter(after, size);
+
+        log.info("scrollCarts() - Response prepared with {} carts. Next: {}", page.getItems().size(), page.getNext());
+        return page;
+    }
+
     /**
      * Retrieves a specific cart by its ID.
+     * The cart version is sent as the ETag, and a request whose If-None-Match still matches it
+     * gets a 304 without the cart lines being loaded.
      *
      * @param id the ID of the cart to retrieve.
-     * @return a ResponseEntity containing the CartDTO if found, or a 404 status if not found.
+     * @param request the request, checked for If-None-Match.
+     * @return a ResponseEntity containing the CartDTO if found, a 304 status if the client copy is current,
+     * or a 404 status if not found.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<CartDTO> displayCart(@PathVariable Long id) {
+    public ResponseEntity<CartDTO> displayCart(@PathVariable Long id, WebRequest request) {
         log.info("displayCart() - Request received. Cart ID: {}", id);
 
+        Optional<Long> version = cartService.getCartVersion(id);
+        if (version.isPresent() && request.checkNotModified(String.valueOf(version.get()))) {
+            log.info("displayCart() - Cart not modified. Cart ID: {}", id);
+            return null;
+        }
+
         return cartService.displayCart(id)
                 .map(cartDTO -> {
                     log.info("displayCart() - Cart found. Cart ID: {}", id);
-                    return ResponseEntity.ok(cartDTO);
+                    return ResponseEntity.ok().eTag(String.valueOf(cartDTO.getVersion())).body(cartDTO);
                 })
                 .orElseGet(() -> {
                     log.warn("displayCart() - Cart not found. Cart ID: {}", id);
@@ -95,6 +152,22 @@ public class CartController {
         return ResponseEntity.ok(totalPrice);
     }
 
+    /**
+     * Prices every line of a specific cart.
+     *
+     * @param id the ID of the cart to price.
+     * @return a ResponseEntity containing the unit prices, unpriced book IDs and total of the cart.
+     */
+    @GetMapping("/{id}/pricing")
+    public ResponseEntity<CartPricingDTO> priceCart(@PathVariable Long id) {
+        log.info("priceCart() - Request received. Cart ID: {}", id);
+
+        CartPricingDTO pricing = cartService.priceCart(id);
+        log.info("priceCart() - Cart priced. Cart ID: {}. Total: {}", id, pricing.getTotal());
+
+        return ResponseEntity.ok(pricing);
+    }
+
     /**
      * Creates a new cart.
      *
@@ -117,16 +190,51 @@ public class CartController {
      * @param cartId   the ID of the cart to which the book is to be added.
      * @param bookId   the ID of the book to add to the cart.
      * @param quantity the quantity of the book to add.
+     * @param idempotencyKey optional key under which a retried request replays the first response.
      * @return the updated CartDTO after the book has been added.
      */
     @PostMapping("/{cartId}/add/{bookId}")
-    public CartDTO addBookToCart(@PathVariable Long cartId, @PathVariable Long bookId, @RequestParam int quantity) {
+    public ResponseEntity<CartDTO> addBookToCart(@PathVariable Long cartId, @PathVariable Long bookId,
+                                                 @RequestParam int quantity,
+                                                 @RequestHeader(name = IdempotentRequests.IDEMPOTENCY_KEY, required = false)
+                                                 String idempotencyKey) {
         log.info("addBookToCart() - Request received. Cart ID: {}, Book ID: {}, Quantity: {}", cartId, bookId, quantity);
 
-        CartDTO updatedCart = cartService.addABookToCart(cartId, bookId, quantity);
-        log.info("addBookToCart() - Book added to Cart ID: {}. Updated Cart Books: {}", cartId, updatedCart.getBooks().size());
+        return idempotentRequests.execute(idempotencyKey, "cart:" + cartId,
+                "POST /api/v1/carts/" + cartId + "/add/" + bookId + "?quantity=" + quantity, () -> {
+                    CartDTO updatedCart = cartService.addABookToCart(cartId, bookId, quantity);
+                    log.info("addBookToCart() - Book added to Cart ID: {}. Updated Cart Books: {}", cartId, updatedCart.getBooks().size());
+                    return ResponseEntity.ok(updatedCart);
+                });
+    }
 
-        return updatedCart;
+    /**
+     * Applies a list of add, set and remove operations to a cart in one transaction.
+     * Either every operation is applied or, if one of them is invalid, none is.
+     *
+     * @param cartId the ID of the cart to change.
+     * @param operations the changes to apply, in order (e.g. [{"op":"ADD","bookId":1,"quantity":2}]).
+     * @param idempotencyKey optional key under which a retried request replays the first response.
+     * @param ifMatch optional ETag of the cart as the client last read it; the operations are only applied
+     *                while the cart still has that version.
+     * @return the CartDTO after every operation has been applied, or a 409 status if the cart changed in between.
+     */
+    @PostMapping("/{cartId}/lines")
+    public ResponseEntity<CartDTO> applyOperations(@PathVariable Long cartId,
+                                                   @RequestBody List<CartOperationDTO> operations,
+                                                   @RequestHeader(name = IdempotentRequests.IDEMPOTENCY_KEY, required = false)
+                                                   String idempotencyKey,
+                                                   @RequestHeader(name = HttpHeaders.IF_MATCH, required = false)
+                                                   String ifMatch) {
+        log.info("applyOperations() - Request received. Cart ID: {}, Operations: {}", cartId, operations.size());
+
+        return idempotentRequests.execute(idempotencyKey, "cart:" + cartId,
+                "POST /api/v1/carts/" + cartId + "/lines " + operations, () -> {
+                    CartDTO updatedCart = cartService.applyOperations(cartId, operations,
+                            EntityTags.expectedVersion(ifMatch));
+                    log.info("applyOperations() - Operations applied to Cart ID: {}. Updated Cart Books: {}", cartId, updatedCart.getBooks().size());
+                    return ResponseEntity.ok(updatedCart);
+                });
     }
 
     /**
@@ -149,7 +257,7 @@ public class CartController {
      * @param id the ID of the cart to delete.
      */
     @DeleteMapping("/{cartId}")
-    public void deleteCart(@PathVariable Long id) {
+    public void deleteCart(@PathVariable("cartId") Long id) {
         log.info("deleteCart() - Request received. Cart ID: {}", id);
 
         cartService.deleteCart(id);
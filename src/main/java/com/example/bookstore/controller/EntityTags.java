@@ -0,0 +1,35 @@
+package com.example.bookstore.controller;
+
+/**
+ * Reads the version a client expects from an If-Match header. Books and carts are served with their
+ * version as ETag, so the header carries the version the client last read.
+ */
+final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    /**
+     * @param ifMatch If-Match header, e.g. {@code "3"} or {@code W/"3"}
+     * @return The expected version, or null when the header is absent or {@code *}
+     * @throws IllegalArgumentException When the header is not a single version tag
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() > 1 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("If-Match must be a single version tag: " + ifMatch);
+        }
+    }
+
+}
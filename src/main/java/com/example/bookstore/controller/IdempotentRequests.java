@@ -0,0 +1,121 @@
+package com.example.bookstore.controller;
+
+import com.example.bookstore.exception.IdempotencyKeyConflictException;
+import com.example.bookstore.service.cache.BoundedCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per Idempotency-Key. Completed responses are kept in a bounded cache and replayed
+ * without running the request again, and a duplicate that arrives while the first one is still running waits
+ * for its response instead of starting a second execution. Failed requests are not kept, so they can be retried.
+ * Keys are scoped by the resource the request acts on, so clients that pick the same key never see each other's responses
+ */
+@Component
+class IdempotentRequests {
+
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    static final String REPLAYED = "Idempotent-Replayed";
+
+    private static final int MAXIMUM_KEY_LENGTH = 255;
+
+    private final BoundedCache<ScopedKey, Completed> completed;
+    private final ConcurrentMap<ScopedKey, CompletableFuture<Completed>> inFlight = new ConcurrentHashMap<>();
+
+    IdempotentRequests(@Value("${bookstore.idempotency.maximum-size:100000}") int maximumSize,
+                       @Value("${bookstore.idempotency.time-to-live:24h}") Duration timeToLive) {
+        this.completed = new BoundedCache<>(maximumSize, timeToLive);
+    }
+
+    /**
+     * Runs the request, or replays the response of the request that first used the key
+     * @param key Idempotency-Key header, or null to always run the request
+     * @param scope Resource the request acts on, such as a cart or a user, which namespaces the key
+     * @param fingerprint Method and resource of the request, which a reused key must match
+     * @param request The request to run
+     * @return The response of the single execution of the request
+     */
+    <T> ResponseEntity<T> execute(String key, String scope, String fingerprint, Supplier<ResponseEntity<T>> request) {
+        if (key == null) {
+            return request.get();
+        }
+        if (key.isBlank() || key.length() > MAXIMUM_KEY_LENGTH) {
+            throw new RuntimeException(IDEMPOTENCY_KEY + " must be between 1 and " + MAXIMUM_KEY_LENGTH + " characters");
+        }
+        return execute(new ScopedKey(scope, key), fingerprint, request);
+    }
+
+    private <T> ResponseEntity<T> execute(ScopedKey key, String fingerprint, Supplier<ResponseEntity<T>> request) {
+        Completed done = completed.get(key);
+        if (done != null) {
+            return replay(done, key, fingerprint);
+        }
+
+        CompletableFuture<Completed> execution = new CompletableFuture<>();
+        CompletableFuture<Completed> running = inFlight.putIfAbsent(key, execution);
+        if (running != null) {
+            return replay(await(running), key, fingerprint);
+        }
+
+        try {
+            // The previous execution may have finished between the cache lookup and claiming the key
+            done = completed.get(key);
+            if (done == null) {
+                done = new Completed(fingerprint, request.get());
+                completed.put(key, done);
+                execution.complete(done);
+                return typed(done.response());
+            }
+            execution.complete(done);
+            return replay(done, key, fingerprint);
+        } catch (RuntimeException | Error e) {
+            execution.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, execution);
+        }
+    }
+
+    private static Completed await(CompletableFuture<Completed> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static <T> ResponseEntity<T> replay(Completed done, ScopedKey key, String fingerprint) {
+        if (!done.fingerprint().equals(fingerprint)) {
+            throw new IdempotencyKeyConflictException(IDEMPOTENCY_KEY + " " + key.key() + " was already used for "
+                    + done.fingerprint());
+        }
+        ResponseEntity<T> response = typed(done.response());
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .header(REPLAYED, "true")
+                .body(response.getBody());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ResponseEntity<T> typed(ResponseEntity<?> response) {
+        return (ResponseEntity<T>) response;
+    }
+
+    private record ScopedKey(String scope, String key) {
+    }
+
+    private record Completed(String fingerprint, ResponseEntity<?> response) {
+    }
+
+}
@@ -1,11 +1,20 @@
 package com.example.bookstore.controller;
 
 import com.example.bookstore.service.OrderService;
+import com.example.bookstore.service.dto.CursorPageDTO;
 import com.example.bookstore.service.dto.OrderDTO;
+import com.example.bookstore.service.dto.OrderDetailDTO;
+import com.example.bookstore.service.dto.PageDTO;
+import com.example.bookstore.service.dto.SliceDTO;
 import com.example.bookstore.service.implementation.OrderServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -20,10 +29,12 @@ import java.util.Optional;
 public class OrderController {
 
     private final OrderService orderService;
+    private final ObjectMapper objectMapper;
 
-    public OrderController(OrderServiceImpl orderService) {
+    public OrderController(OrderServiceImpl orderService, ObjectMapper objectMapper) {
 
         this.orderService = orderService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -43,13 +54,70 @@ public class OrderController {
 
     }
 
+    /**
+     * Retrieves one page of orders, sorted by the requested properties and then by ID.
+     *
+     * @param pageable the page number, size and sort (e.g. ?page=0&size=50&sort=title,asc).
+     * @return a page of OrderDTO objects with the total number of orders.
+     */
+    @GetMapping("/page")
+    public ResponseEntity<PageDTO<OrderDTO>> getOrdersPage(@PageableDefault(size = 50) Pageable pageable) {
+
+        log.info("getOrdersPage() - Request received. Page: {}, Size: {}", pageable.getPageNumber(), pageable.getPageSize());
+
+        PageDTO<OrderDTO> page = orderService.getOrders(pageable);
+
+        log.info("getOrdersPage() - Response prepared with {} orders.", page.getItems().size());
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * Retrieves the orders that follow a cursor, ordered by ID.
+     *
+     * @param after the ID of the last order of the previous page, omitted for the first page.
+     * @param size the maximum number of orders to return.
+     * @return a page of OrderDTO objects and the cursor of the next page, null on the last page.
+     */
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPageDTO<OrderDTO>> scrollOrders(@RequestParam(required = false) Long after,
+                                                                @RequestParam(defaultValue = "50") int size) {
+
+        log.info("scrollOrders() - Request received. After: {}, Size: {}", after, size);
+
+        CursorPageDTO<OrderDTO> page = orderService.getOrdersAfter(after, size);
+
+        log.info("scrollOrders() - Response prepared with {} orders. Next: {}", page.getItems().size(), page.getNext());
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * Exports the whole order history as newline-delimited JSON, one order per line in ID order.
+     * Orders are written as they are read, so the first line is sent right away and memory use stays constant.
+     *
+     * @return a ResponseEntity streaming every OrderDTO.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders() {
+
+        log.info("exportOrders() - Request received.");
+
+        StreamingResponseBody body = out -> {
+            long count = orderService.exportOrders(new NdjsonWriter<>(objectMapper, out));
+            log.info("exportOrders() - Export completed with {} orders.", count);
+        };
+
+        return ResponseEntity.ok()
+                .contentType(NdjsonWriter.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     /**
      * Retrieves all orders filtered by a specific date.
      *
      * @param date the date to filter orders by (in YYYY-MM-DD format).
      * @return a ResponseEntity containing a list of OrderDTO objects filtered by the specified date.
      */
-    @GetMapping("/filter")
+    @GetMapping(value = "/filter", params = "date")
     public ResponseEntity<List<OrderDTO>> getAllOrdersByDate(@RequestParam("date") String date) {
 
         log.info("getAllOrdersByDate() - Request received to filter orders by date: {}", date);
@@ -63,6 +131,53 @@ public class OrderController {
 
     }
 
+    /**
+     * Retrieves one page of orders placed within a date range, optionally for a single user, newest first.
+     *
+     * @param from the first day of the range (in YYYY-MM-DD format), omitted for no lower bound.
+     * @param to the last day of the range, inclusive (in YYYY-MM-DD format), omitted for no upper bound.
+     * @param userId the ID of the user whose orders to retrieve, omitted for all users.
+     * @param page the page number.
+     * @param size the maximum number of orders to return.
+     * @return a ResponseEntity containing a slice of OrderDTO objects and whether a next page exists.
+     */
+    @GetMapping(value = "/filter", params = "!date")
+    public ResponseEntity<SliceDTO<OrderDTO>> filterOrders(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+
+        log.info("filterOrders() - Request received. From: {}, To: {}, User ID: {}, Page: {}", from, to, userId, page);
+
+        SliceDTO<OrderDTO> orders = orderService.findOrders(userId, from, to, page, size);
+
+        log.info("filterOrders() - Retrieved {} orders.", orders.getItems().size());
+        return ResponseEntity.ok(orders);
+    }
+
+    /**
+     * Retrieves one page of the orders of a user, newest first.
+     *
+     * @param userId the ID of the user whose orders to retrieve.
+     * @param page the page number.
+     * @param size the maximum number of orders to return.
+     * @return a ResponseEntity containing a slice of OrderDTO objects and whether a next page exists.
+     */
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<SliceDTO<OrderDTO>> getOrdersByUser(@PathVariable Long userId,
+                                                             @RequestParam(defaultValue = "0") int page,
+                                                             @RequestParam(defaultValue = "50") int size) {
+
+        log.info("getOrdersByUser() - Request received. User ID: {}, Page: {}", userId, page);
+
+        SliceDTO<OrderDTO> orders = orderService.findOrders(userId, null, null, page, size);
+
+        log.info("getOrdersByUser() - Retrieved {} orders for User ID: {}", orders.getItems().size(), userId);
+        return ResponseEntity.ok(orders);
+    }
+
     /**
      * Retrieves an order by its ID.
      *
@@ -70,7 +185,7 @@ public class OrderController {
      * @return a ResponseEntity containing the OrderDTO if found, or a 404 status if not found.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<OrderDTO> getOrderById(@PathVariable Long orderId) {
+    public ResponseEntity<OrderDTO> getOrderById(@PathVariable("id") Long orderId) {
 
         log.info("getOrderById() - Request received. Order ID: {}", orderId);
         Optional<OrderDTO> orderDTOs = orderService.getOrderById(orderId);
@@ -84,6 +199,28 @@ public class OrderController {
         });
 
     }
+
+    /**
+     * Retrieves an order with its lines, priced as they were when the order was placed.
+     *
+     * @param orderId the ID of the order to retrieve.
+     * @return a ResponseEntity containing the OrderDetailDTO if found, or a 404 status if not found.
+     */
+    @GetMapping("/{id}/lines")
+    public ResponseEntity<OrderDetailDTO> getOrderDetail(@PathVariable("id") Long orderId) {
+
+        log.info("getOrderDetail() - Request received. Order ID: {}", orderId);
+
+        return orderService.getOrderDetail(orderId).map(detail -> {
+            log.info("getOrderDetail() - Order found with {} lines. Order ID: {}", detail.getLines().size(), orderId);
+            return ResponseEntity.ok(detail);
+        }).orElseGet(() -> {
+            log.warn("getOrderDetail() - Order not found. Order ID: {}", orderId);
+            return ResponseEntity.notFound().build();
+        });
+
+    }
+
     /**
      * Retrieves the total bill for a specific order.
      *
@@ -109,7 +246,7 @@ public class OrderController {
      *
      * @param id the ID of the order to cancel.
      */
-    @DeleteMapping("/{orderId}")
+    @DeleteMapping("/{id}")
     public void deleteCart(@PathVariable Long id) {
 
         log.info("deleteCart() - Request received to cancel Order ID: {}", id);
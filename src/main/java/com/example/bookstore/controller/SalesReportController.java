@@ -0,0 +1,91 @@
+package com.example.bookstore.controller;
+
+import com.example.bookstore.service.SalesReportService;
+import com.example.bookstore.service.dto.DailySalesDTO;
+import com.example.bookstore.service.dto.MonthlySalesDTO;
+import com.example.bookstore.service.dto.SalesRebuildReportDTO;
+import com.example.bookstore.service.implementation.SalesReportServiceImpl;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Controller for sales reports, served from the daily sales rollups
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/report/sales")
+public class SalesReportController {
+
+    private final SalesReportService salesReportService;
+
+    public SalesReportController(SalesReportServiceImpl salesReportService) {
+
+        this.salesReportService = salesReportService;
+    }
+
+    /**
+     * Retrieves revenue, order count and units per book for every day of a range.
+     *
+     * @param from the first day (in YYYY-MM-DD format).
+     * @param to the last day, inclusive (in YYYY-MM-DD format).
+     * @return a ResponseEntity containing the sales of each day that had orders.
+     */
+    @GetMapping("/daily")
+    public ResponseEntity<List<DailySalesDTO>> getDailySales(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        log.info("getDailySales() - Request received. From: {}, To: {}", from, to);
+
+        List<DailySalesDTO> sales = salesReportService.getDailySales(from, to);
+
+        log.info("getDailySales() - Retrieved sales of {} days.", sales.size());
+        return ResponseEntity.ok(sales);
+    }
+
+    /**
+     * Retrieves revenue, order count and units per book for every month of a range.
+     *
+     * @param from the first month (in YYYY-MM format).
+     * @param to the last month, inclusive (in YYYY-MM format).
+     * @return a ResponseEntity containing the sales of each month that had orders.
+     */
+    @GetMapping("/monthly")
+    public ResponseEntity<List<MonthlySalesDTO>> getMonthlySales(@RequestParam YearMonth from,
+                                                                 @RequestParam YearMonth to) {
+
+        log.info("getMonthlySales() - Request received. From: {}, To: {}", from, to);
+
+        List<MonthlySalesDTO> sales = salesReportService.getMonthlySales(from, to);
+
+        log.info("getMonthlySales() - Retrieved sales of {} months.", sales.size());
+        return ResponseEntity.ok(sales);
+    }
+
+    /**
+     * Regenerates the daily sales of a range of days from the orders.
+     *
+     * @param from the first day (in YYYY-MM-DD format).
+     * @param to the last day, inclusive (in YYYY-MM-DD format).
+     * @return a ResponseEntity containing the number of days and chunks rebuilt.
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<SalesRebuildReportDTO> rebuild(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        log.info("rebuild() - Request received. From: {}, To: {}", from, to);
+
+        SalesRebuildReportDTO report = salesReportService.rebuild(from, to);
+
+        log.info("rebuild() - Rebuilt {} days in {} chunks.", report.getDays(), report.getChunks());
+        return ResponseEntity.ok(report);
+    }
+
+}
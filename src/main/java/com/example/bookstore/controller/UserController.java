@@ -1,15 +1,22 @@
 package com.example.bookstore.controller;
 
+import com.example.bookstore.service.CheckoutService;
 import com.example.bookstore.service.UserService;
+import com.example.bookstore.service.dto.CheckoutStatusDTO;
+import com.example.bookstore.service.dto.CursorPageDTO;
 import com.example.bookstore.service.dto.OrderDTO;
+import com.example.bookstore.service.dto.PageDTO;
 import com.example.bookstore.service.dto.UserCreateDTO;
 import com.example.bookstore.service.dto.UserDTO;
 //import com.example.bookstore.service.implementation.UserService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
 import java.util.List;
 
 /**
@@ -23,6 +30,12 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private CheckoutService checkoutService;
+
+    @Autowired
+    private IdempotentRequests idempotentRequests;
+
     /**
      * Creates a new user.
      *
@@ -80,6 +93,42 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
 
+    /**
+     * Retrieves one page of users, sorted by the requested properties and then by ID.
+     *
+     * @param pageable the page number, size and sort (e.g. ?page=0&size=50&sort=title,asc).
+     * @return a page of UserDTO objects with the total number of users.
+     */
+    @GetMapping("/page")
+    public ResponseEntity<PageDTO<UserDTO>> getUsersPage(@PageableDefault(size = 50) Pageable pageable) {
+
+        log.info("getUsersPage() - Request received. Page: {}, Size: {}", pageable.getPageNumber(), pageable.getPageSize());
+
+        PageDTO<UserDTO> page = userService.getUsers(pageable);
+
+        log.info("getUsersPage() - Response prepared with {} users.", page.getItems().size());
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * Retrieves the users that follow a cursor, ordered by ID.
+     *
+     * @param after the ID of the last user of the previous page, omitted for the first page.
+     * @param size the maximum number of users to return.
+     * @return a page of UserDTO objects and the cursor of the next page, null on the last page.
+     */
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPageDTO<UserDTO>> scrollUsers(@RequestParam(required = false) Long after,
+                                                              @RequestParam(defaultValue = "50") int size) {
+
+        log.info("scrollUsers() - Request received. After: {}, Size: {}", after, size);
+
+        CursorPageDTO<UserDTO> page = userService.getUsersAfter(after, size);
+
+        log.info("scrollUsers() - Response prepared with {} users. Next: {}", page.getItems().size(), page.getNext());
+        return ResponseEntity.ok(page);
+    }
+
     /**
      * Deletes a user by their ID.
      *
@@ -104,21 +153,68 @@ public class UserController {
      *
      * @param userId the ID of the user.
      * @param cartId the ID of the cart to be converted.
+     * @param idempotencyKey optional key under which a retried request replays the first response.
      * @return a ResponseEntity containing the created OrderDTO if successful, or a 400 status if the operation fails.
      */
     @PostMapping("/{userId}/{cartId}/confirm")
-    public ResponseEntity<OrderDTO> convertCartToOrder(@PathVariable Long userId, @PathVariable Long cartId) {
+    public ResponseEntity<OrderDTO> convertCartToOrder(@PathVariable Long userId, @PathVariable Long cartId,
+                                                       @RequestHeader(name = IdempotentRequests.IDEMPOTENCY_KEY, required = false)
+                                                       String idempotencyKey) {
 
         log.info("convertCartToOrder() - Request received. User ID: {}, Cart ID: {}", userId, cartId);
 
-        return userService.confirmAndConvertCartToOrder(userId, cartId)
-                .map(orderDTO -> {
-                    log.info("convertCartToOrder() - Cart successfully converted to order. User ID: {}, Cart ID: {}", userId, cartId);
-                    return ResponseEntity.ok(orderDTO);
-                })
+        return idempotentRequests.execute(idempotencyKey, "user:" + userId,
+                "POST /api/users/" + userId + "/" + cartId + "/confirm",
+                () -> userService.confirmAndConvertCartToOrder(userId, cartId)
+                        .map(orderDTO -> {
+                            log.info("convertCartToOrder() - Cart successfully converted to order. User ID: {}, Cart ID: {}", userId, cartId);
+                            return ResponseEntity.ok(orderDTO);
+                        })
+                        .orElseGet(() -> {
+                            log.warn("convertCartToOrder() - Failed to convert Cart to Order. User ID: {}, Cart ID: {}", userId, cartId);
+                            return ResponseEntity.badRequest().build();
+                        }));
+    }
+
+    /**
+     * Queues the conversion of a cart to an order and returns without waiting for it.
+     *
+     * @param userId the ID of the user.
+     * @param cartId the ID of the cart to be converted.
+     * @return a 202 ResponseEntity containing the pending checkout request, with its status URL as Location.
+     */
+    @PostMapping("/{userId}/{cartId}/checkout")
+    public ResponseEntity<CheckoutStatusDTO> submitCheckout(@PathVariable Long userId, @PathVariable Long cartId) {
+
+        log.info("submitCheckout() - Request received. User ID: {}, Cart ID: {}", userId, cartId);
+
+        CheckoutStatusDTO checkout = checkoutService.submitCheckout(userId, cartId);
+
+        log.info("submitCheckout() - Checkout request {} is {}. User ID: {}, Cart ID: {}",
+                checkout.getRequestId(), checkout.getStatus(), userId, cartId);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/users/" + userId + "/checkouts/" + checkout.getRequestId()))
+                .body(checkout);
+    }
+
+    /**
+     * Retrieves the status of a queued checkout, including the order ID once it is completed.
+     *
+     * @param userId the ID of the user.
+     * @param requestId the ID of the checkout request.
+     * @return a ResponseEntity containing the checkout status, or a 404 status if not found.
+     */
+    @GetMapping("/{userId}/checkouts/{requestId}")
+    public ResponseEntity<CheckoutStatusDTO> getCheckoutStatus(@PathVariable Long userId, @PathVariable Long requestId) {
+
+        log.info("getCheckoutStatus() - Request received. User ID: {}, Request ID: {}", userId, requestId);
+
+        return checkoutService.getCheckoutStatus(userId, requestId)
+                .map(ResponseEntity::ok)
                 .orElseGet(() -> {
-                    log.warn("convertCartToOrder() - Failed to convert Cart to Order. User ID: {}, Cart ID: {}", userId, cartId);
-                    return ResponseEntity.badRequest().build();
+                    log.warn("getCheckoutStatus() - Checkout request not found. User ID: {}, Request ID: {}",
+                            userId, requestId);
+                    return ResponseEntity.notFound().build();
                 });
     }
 
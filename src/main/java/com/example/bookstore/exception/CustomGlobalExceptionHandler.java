@@ -1,6 +1,9 @@
 package com.example.bookstore.exception;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.OptimisticLockException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -9,21 +12,48 @@ import org.springframework.web.bind.annotation.ControllerAdvice;
 @ControllerAdvice
 public class CustomGlobalExceptionHandler {
 
+    private final MeterRegistry meterRegistry;
+
+    public CustomGlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     // Handle RuntimeException (including EntityNotFoundException)
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<String> handleRuntimeException(RuntimeException ex) {
-        return new ResponseEntity<>("Error: " + ex.getMessage(), HttpStatus.BAD_REQUEST);
+        return respond(ex, "Error: " + ex.getMessage(), HttpStatus.BAD_REQUEST);
     }
 
     // Handle specific EntityNotFoundException (if you want to provide a more specific response)
     @ExceptionHandler(EntityNotFoundException.class)
     public ResponseEntity<String> handleEntityNotFound(EntityNotFoundException ex) {
-        return new ResponseEntity<>("Error: " + ex.getMessage(), HttpStatus.NOT_FOUND);
+        return respond(ex, "Error: " + ex.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
+    // An Idempotency-Key reused for a different request must not replay the first response
+    @ExceptionHandler(IdempotencyKeyConflictException.class)
+    public ResponseEntity<String> handleIdempotencyKeyConflict(IdempotencyKeyConflictException ex) {
+        return respond(ex, "Error: " + ex.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    // A version conflict: the row changed since the client or the transaction read it
+    @ExceptionHandler({OptimisticLockingFailureException.class, OptimisticLockException.class})
+    public ResponseEntity<String> handleVersionConflict(RuntimeException ex) {
+        return respond(ex, "Error: The resource was changed by another request, read it again and retry",
+                HttpStatus.CONFLICT);
     }
 
     // Handle all other exceptions (optional)
     @ExceptionHandler(Exception.class)
     public ResponseEntity<String> handleGeneralException(Exception ex) {
-        return new ResponseEntity<>("Internal Server Error: " + ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        return respond(ex, "Internal Server Error: " + ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    // Count every handled error by response status and exception type
+    private ResponseEntity<String> respond(Exception ex, String body, HttpStatus status) {
+        meterRegistry.counter("bookstore.errors",
+                "status", String.valueOf(status.value()),
+                "exception", ex.getClass().getSimpleName()).increment();
+        return new ResponseEntity<>(body, status);
     }
 }
@@ -0,0 +1,12 @@
+package com.example.bookstore.exception;
+
+/**
+ * Thrown when an Idempotency-Key is sent again with a different request than the one it was first used for
+ */
+public class IdempotencyKeyConflictException extends RuntimeException {
+
+    public IdempotencyKeyConflictException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.example.bookstore.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread while a count is active.
+ * Registered as the session factory's statement inspector, it sees every statement without changing it.
+ * A count can be carried onto another thread with {@link #propagate(Runnable)}, so that the statements of a
+ * response written on the async executor are counted for the request that started it.
+ */
+public class StatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<AtomicLong> COUNT = new ThreadLocal<>();
+
+    /**
+     * Starts counting on the current thread, discarding any previous count
+     * @return The new count, which keeps growing on the threads it is propagated to
+     */
+    public static AtomicLong start() {
+        AtomicLong count = new AtomicLong();
+        COUNT.set(count);
+        return count;
+    }
+
+    /**
+     * Stops counting on the current thread
+     * @return Number of statements prepared since {@link #start()}, or zero if counting was not active
+     */
+    public static long stop() {
+        AtomicLong count = COUNT.get();
+        COUNT.remove();
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * Wraps a task so that it adds to the count of the current thread, wherever it runs
+     * @param task Task to hand over to another thread
+     * @return The task, counting for the current thread if a count is active
+     */
+    public static Runnable propagate(Runnable task) {
+        AtomicLong count = COUNT.get();
+        if (count == null) {
+            return task;
+        }
+        return () -> {
+            AtomicLong previous = COUNT.get();
+            COUNT.set(count);
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    COUNT.remove();
+                } else {
+                    COUNT.set(previous);
+                }
+            }
+        };
+    }
+
+    @Override
+    public String inspect(String sql) {
+        AtomicLong count = COUNT.get();
+        if (count != null) {
+            count.incrementAndGet();
+        }
+        return sql;
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.example.bookstore.migration;
+
+import com.example.bookstore.model.Book;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the book id sequence past the books that already exist.
+ * On MySQL the sequence is a table that Hibernate creates with a next value of 1, also when the books table
+ * already has rows from the time ids were IDENTITY columns, so the first inserts would reuse their ids.
+ * Runs while the context starts, after Hibernate has updated the schema. Databases with real sequences, such as
+ * the embedded test database, have no such table and are left alone.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+class BookSequenceSeed implements InitializingBean {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    BookSequenceSeed(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Long next = seed(Book.ID_SEQUENCE);
+        if (next != null) {
+            log.info("afterPropertiesSet() - Moved {} to {}, past the existing books", Book.ID_SEQUENCE, next);
+        }
+    }
+
+    /**
+     * The pooled optimizer hands out the {@link Book#ID_ALLOCATION_SIZE} ids up to the value it reads, so the
+     * value must be at least that far above the highest id. It is only ever moved forward
+     * @param table Table that holds the next value of the sequence
+     * @return The new next value, or null if the table does not exist or was already far enough
+     */
+    Long seed(String table) {
+        if (!Schema.tableExists(jdbcTemplate, table)) {
+            return null;
+        }
+        Long maxId = jdbcTemplate.queryForObject("select max(id) from books", Long.class);
+        if (maxId == null) {
+            return null;
+        }
+        long next = maxId + Book.ID_ALLOCATION_SIZE + 1;
+        return jdbcTemplate.update("update " + table + " set next_val = ? where next_val < ?", next, next) > 0
+                ? next
+                : null;
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.example.bookstore.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Copies the lines of orders placed before order lines existed from the old order_books table into order_lines.
+ * Those orders only recorded quantities, so their lines have no unit price or title.
+ * Runs while the context starts, after Hibernate has updated the schema and before any request is served.
+ * Orders that already have lines are skipped, so it is safe to run on every start. order_books can be dropped
+ * once every instance runs this version.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+class OrderLinesBackfill implements InitializingBean {
+
+    static final String LEGACY_TABLE = "order_books";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    OrderLinesBackfill(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        int copied = backfill();
+        if (copied > 0) {
+            log.info("afterPropertiesSet() - Copied {} order lines from {}", copied, LEGACY_TABLE);
+        }
+    }
+
+    /**
+     * @return Number of lines copied, 0 when there is no legacy table
+     */
+    int backfill() {
+        if (!Schema.tableExists(jdbcTemplate, LEGACY_TABLE)) {
+            return 0;
+        }
+        // Hibernate named the key column of the old Map<Long, Integer> books_key
+        return jdbcTemplate.update("insert into order_lines (order_id, book_id, quantity) "
+                + "select ob.order_id, ob.books_key, ob.quantity from order_books ob "
+                + "where not exists (select 1 from order_lines ol where ol.order_id = ob.order_id)");
+    }
+
+}
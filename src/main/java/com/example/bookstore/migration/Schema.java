@@ -0,0 +1,35 @@
+package com.example.bookstore.migration;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.ResultSet;
+import java.util.Locale;
+
+/**
+ * Schema lookups shared by the startup migrations.
+ */
+final class Schema {
+
+    private Schema() {
+    }
+
+    /**
+     * Unquoted names are stored upper case by H2 and as written by MySQL, so both spellings are looked up.
+     */
+    static boolean tableExists(JdbcTemplate jdbcTemplate, String table) {
+        Boolean exists = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            for (String name : new String[]{table, table.toUpperCase(Locale.ROOT)}) {
+                try (ResultSet tables = connection.getMetaData()
+                        .getTables(connection.getCatalog(), null, name, new String[]{"TABLE"})) {
+                    if (tables.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        });
+        return Boolean.TRUE.equals(exists);
+    }
+
+}
@@ -26,8 +26,18 @@ public class Cart {
     @Column(name = "quantity")
     private Map<Long,Integer> books;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    // Bumped on every change of the cart or of its lines, and served as the ETag of the cart
+    @Version
+    private long version;
+
+    public Cart(Long cartId, Map<Long, Integer> books, User user) {
+        this.cartId = cartId;
+        this.books = books;
+        this.user = user;
+    }
+
 }
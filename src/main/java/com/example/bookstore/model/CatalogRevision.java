@@ -0,0 +1,29 @@
+package com.example.bookstore.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Revision of the book catalog, a single row that every transaction writing books moves forward by one.
+ * It is served as the ETag of the whole catalog, and unlike a fingerprint of the books it changes
+ * whichever instance made the write and whatever combination of writes it was
+ */
+@Entity
+@Table(name = "catalog_revision")
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class CatalogRevision {
+
+    public static final int CATALOG = 1;
+
+    @Id
+    private int id;
+
+    private long revision;
+
+}
@@ -0,0 +1,67 @@
+package com.example.bookstore.model;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import jakarta.transaction.Synchronization;
+import org.hibernate.Session;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+
+/**
+ * Moves the {@link CatalogRevision} forward once in every transaction that inserts, updates or deletes books.
+ * The row is written after Hibernate's last flush, right before the commit, so it is only locked for the commit
+ * and a transaction that writes many books never waits for it while holding their rows
+ */
+public class CatalogRevisionListener {
+
+    private static final Object BUMP_REGISTERED = new Object();
+
+    private static final String BUMP = "insert into catalog_revision (id, revision) values (?, 1) "
+            + "on duplicate key update revision = revision + 1";
+
+    // Looked up when a book is written, since the listener is created while the factory is being built
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+    public CatalogRevisionListener(ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void bookChanged(Book book) {
+        if (TransactionSynchronizationManager.hasResource(BUMP_REGISTERED)) {
+            return;
+        }
+        EntityManager entityManager =
+                EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory.getObject());
+        if (entityManager == null) {
+            throw new IllegalStateException("Books can only be written in a transaction");
+        }
+        Session session = entityManager.unwrap(Session.class);
+        TransactionSynchronizationManager.bindResource(BUMP_REGISTERED, Boolean.TRUE);
+        session.getTransaction().registerSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+                session.doWork(connection -> {
+                    try (PreparedStatement bump = connection.prepareStatement(BUMP)) {
+                        bump.setInt(1, CatalogRevision.CATALOG);
+                        bump.executeUpdate();
+                    }
+                });
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(BUMP_REGISTERED);
+            }
+        });
+    }
+
+}
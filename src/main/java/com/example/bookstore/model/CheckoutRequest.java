@@ -0,0 +1,50 @@
+package com.example.bookstore.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outbox row of an asynchronous checkout. The cart id is unique, so submitting
+ * the same cart again returns the request that is already queued
+ */
+@Entity
+@Table(name = "checkout_requests", indexes = @Index(name = "idx_checkout_requests_status", columnList = "status, id"))
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class CheckoutRequest {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, unique = true)
+    private Long cartId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private CheckoutStatus status;
+
+    private Long orderId;
+
+    @Column(length = 500)
+    private String error;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime claimedAt;
+    private LocalDateTime completedAt;
+
+}
@@ -0,0 +1,10 @@
+package com.example.bookstore.model;
+
+public enum CheckoutStatus {
+
+    PENDING,
+    PROCESSING,
+    COMPLETED,
+    FAILED
+
+}
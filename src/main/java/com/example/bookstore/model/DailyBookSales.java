@@ -0,0 +1,39 @@
+package com.example.bookstore.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Units of one book sold on one day, kept up to date at checkout and cancellation
+ */
+@Entity
+@Table(name = "daily_book_sales", indexes = @Index(name = "idx_daily_book_sales_book", columnList = "book_id, sales_date"))
+@IdClass(DailyBookSales.Key.class)
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class DailyBookSales {
+
+    @Id
+    private LocalDate salesDate;
+
+    @Id
+    private Long bookId;
+
+    private long units;
+
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+
+        private LocalDate salesDate;
+        private Long bookId;
+
+    }
+
+}
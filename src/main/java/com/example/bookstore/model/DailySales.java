@@ -0,0 +1,28 @@
+package com.example.bookstore.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * Revenue and order count of one day, kept up to date at checkout and cancellation
+ */
+@Entity
+@Table(name = "daily_sales")
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class DailySales {
+
+    @Id
+    private LocalDate salesDate;
+
+    private long orderCount;
+    private double revenue;
+
+}
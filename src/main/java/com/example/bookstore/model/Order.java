@@ -4,10 +4,14 @@ import jakarta.persistence.*;
 import lombok.*;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.Map;
 
 @Entity
-@Table(name="orders")
+@Table(name="orders", indexes = {
+        @Index(name = "idx_orders_user_date", columnList = "user_id, order_date, order_id"),
+        @Index(name = "idx_orders_date", columnList = "order_date, order_id")
+})
 @AllArgsConstructor
 @NoArgsConstructor
 @Getter
@@ -19,24 +23,29 @@ public class Order {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long orderId;
 
+    // Lines are keyed by book id and keep their own price and title, so an order never needs the catalog again
     @ElementCollection
-    @CollectionTable(name = "order_books", joinColumns = @JoinColumn(name = "order_id"))
-    @MapKeyJoinColumn(name = "book_id")
-    @Column(name = "quantity")
-    private Map<Long,Integer> books;
+    @CollectionTable(name = "order_lines", joinColumns = @JoinColumn(name = "order_id"))
+    @MapKeyColumn(name = "book_id")
+    private Map<Long, OrderLine> lines;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
     private Double total;
     private LocalDateTime orderDate;
 
-    public Order(Cart cart, Double total, LocalDateTime orderDate, String orderStatus) {
-        this.user = cart.getUser();
-        this.books = cart.getBooks();
-        this.total = total;
-        this.orderDate = orderDate;
+    /**
+     * Quantities of the order, keyed by book id
+     * @return A new map of book ids and their quantities
+     */
+    public Map<Long, Integer> getBooks() {
+        Map<Long, Integer> books = new HashMap<>();
+        if (lines != null) {
+            lines.forEach((bookId, line) -> books.put(bookId, line.getQuantity()));
+        }
+        return books;
     }
 }
 
@@ -1,9 +1,48 @@
 package com.example.bookstore.repository;
 
 import com.example.bookstore.model.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
+
+    List<Book> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = RepositoryHints.EXPORT_FETCH_SIZE))
+    @Query("select b from Book b order by b.id")
+    Stream<Book> streamAllOrderById();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = RepositoryHints.EXPORT_FETCH_SIZE))
+    @Query("select b.id as id, b.version as version from Book b order by b.id")
+    Stream<BookVersion> streamVersionsOrderById();
+
+    // Contains-style LIKE cannot use an index; only used until the search index is loaded
+    @Query("select b from Book b where lower(b.title) like :pattern escape '\\' "
+            + "or lower(b.author) like :pattern escape '\\' order by b.id")
+    Page<Book> searchByTitleOrAuthor(@Param("pattern") String pattern, Pageable pageable);
+
+    @Query("select b.version from Book b where b.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    interface BookVersion {
+
+        Long getId();
+
+        long getVersion();
+
+    }
+
 }
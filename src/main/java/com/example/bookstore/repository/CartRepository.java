@@ -1,7 +1,79 @@
 package com.example.bookstore.repository;
 
 import com.example.bookstore.model.Cart;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface CartRepository extends JpaRepository<Cart,Long> {
+
+    @EntityGraph(attributePaths = "books")
+    @Query("select c from Cart c order by c.cartId")
+    List<Cart> findAllWithBooks();
+
+    @EntityGraph(attributePaths = "books")
+    @Query("select c from Cart c where c.cartId = :id")
+    Optional<Cart> findWithBooksById(@Param("id") Long id);
+
+    // Read-write so that the check stays on the primary and sees a cart created a moment ago
+    @Transactional
+    boolean existsByCartIdAndUserId(Long cartId, Long userId);
+
+    @EntityGraph(attributePaths = "books")
+    @Query("select c from Cart c where c.cartId in :ids")
+    List<Cart> findAllWithBooksByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select c.cartId from Cart c")
+    Page<Long> findIds(Pageable pageable);
+
+    @Query("select c.cartId from Cart c where c.cartId > :after order by c.cartId")
+    List<Long> findIdsAfter(@Param("after") Long after, Limit limit);
+
+    @Query("select c.version from Cart c where c.cartId = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    // Read-write so that a cart created a moment ago already has its owner
+    @Transactional
+    @Query("select c.user.id from Cart c where c.cartId = :id")
+    Optional<Long> findUserIdById(@Param("id") Long id);
+
+    // Hibernate deletes the cart_books rows first. Matching the version fails the delete when the cart changed
+    // after it was read.
+    @Modifying
+    @Query("delete from Cart c where c.cartId = :id and c.version = :version")
+    int deleteByIdAndVersion(@Param("id") Long id, @Param("version") long version);
+
+    // The line statements below bypass the entity, so they bump the version themselves
+    @Modifying
+    @Query("update Cart c set c.version = c.version + 1 where c.cartId = :id")
+    int incrementVersion(@Param("id") Long id);
+
+    @Modifying
+    @Query("update Cart c set c.version = c.version + 1 where c.cartId = :id and c.version = :version")
+    int incrementVersionIfCurrent(@Param("id") Long id, @Param("version") long version);
+
+    // cart_books keys the map by books_key, the column Hibernate derives for a basic map key
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = RepositoryHints.CART_BOOKS_SPACE))
+    @Query(value = "insert into cart_books (cart_id, books_key, quantity) values (:cartId, :bookId, :quantity) "
+            + "on duplicate key update quantity = quantity + :quantity", nativeQuery = true)
+    int addQuantity(@Param("cartId") Long cartId, @Param("bookId") Long bookId, @Param("quantity") int quantity);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = RepositoryHints.CART_BOOKS_SPACE))
+    @Query(value = "delete from cart_books where cart_id = :cartId and books_key = :bookId", nativeQuery = true)
+    int removeLine(@Param("cartId") Long cartId, @Param("bookId") Long bookId);
 }
@@ -0,0 +1,15 @@
+package com.example.bookstore.repository;
+
+import com.example.bookstore.model.CatalogRevision;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Optional;
+
+public interface CatalogRevisionRepository extends JpaRepository<CatalogRevision, Integer> {
+
+    // Not cacheable: the query cache of one instance is not told about the writes of the others
+    @Query("select r.revision from CatalogRevision r where r.id = " + CatalogRevision.CATALOG)
+    Optional<Long> findCatalogRevision();
+
+}
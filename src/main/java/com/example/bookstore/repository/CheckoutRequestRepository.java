@@ -0,0 +1,60 @@
+package com.example.bookstore.repository;
+
+import com.example.bookstore.model.CheckoutRequest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface CheckoutRequestRepository extends JpaRepository<CheckoutRequest, Long> {
+
+    // Read-write so that these reads stay on the primary and see requests submitted a moment ago
+    @Transactional
+    Optional<CheckoutRequest> findByCartId(Long cartId);
+
+    @Transactional
+    Optional<CheckoutRequest> findByIdAndUserId(Long id, Long userId);
+
+    @Transactional
+    @Query("select r.id from CheckoutRequest r where r.status = com.example.bookstore.model.CheckoutStatus.PENDING "
+            + "order by r.id")
+    List<Long> findPendingIds(Limit limit);
+
+    // Only one worker wins the update, so a request is never processed twice
+    @Transactional
+    @Modifying
+    @Query("update CheckoutRequest r set r.status = com.example.bookstore.model.CheckoutStatus.PROCESSING, "
+            + "r.claimedAt = :now where r.id = :id and r.status = com.example.bookstore.model.CheckoutStatus.PENDING")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("update CheckoutRequest r set r.status = com.example.bookstore.model.CheckoutStatus.PENDING, "
+            + "r.error = null, r.claimedAt = null "
+            + "where r.id = :id and r.status = com.example.bookstore.model.CheckoutStatus.FAILED")
+    int resubmit(@Param("id") Long id);
+
+    // Requests claimed by a worker that died are picked up again
+    @Transactional
+    @Modifying
+    @Query("update CheckoutRequest r set r.status = com.example.bookstore.model.CheckoutStatus.PENDING, "
+            + "r.claimedAt = null "
+            + "where r.status = com.example.bookstore.model.CheckoutStatus.PROCESSING and r.claimedAt < :before")
+    int releaseStale(@Param("before") LocalDateTime before);
+
+    // Only a request still being processed fails, so a worker whose claim was released late cannot overwrite
+    // the outcome of the worker that completed the request
+    @Transactional
+    @Modifying
+    @Query("update CheckoutRequest r set r.status = com.example.bookstore.model.CheckoutStatus.FAILED, "
+            + "r.error = :error, r.completedAt = :now "
+            + "where r.id = :id and r.status = com.example.bookstore.model.CheckoutStatus.PROCESSING")
+    int fail(@Param("id") Long id, @Param("error") String error, @Param("now") LocalDateTime now);
+
+}
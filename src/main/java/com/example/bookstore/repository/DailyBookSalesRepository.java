@@ -0,0 +1,39 @@
+package com.example.bookstore.repository;
+
+import com.example.bookstore.model.DailyBookSales;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface DailyBookSalesRepository extends JpaRepository<DailyBookSales, DailyBookSales.Key> {
+
+    List<DailyBookSales> findBySalesDateBetween(LocalDate from, LocalDate to);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = RepositoryHints.DAILY_BOOK_SALES_SPACE))
+    @Query(value = "insert into daily_book_sales (sales_date, book_id, units) values (:day, :bookId, :units) "
+            + "on duplicate key update units = units + :units", nativeQuery = true)
+    int add(@Param("day") LocalDate day, @Param("bookId") Long bookId, @Param("units") long units);
+
+    @Modifying
+    @Query("delete from DailyBookSales s where s.salesDate between :from and :to")
+    int deleteBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = RepositoryHints.DAILY_BOOK_SALES_SPACE))
+    @Query(value = "insert into daily_book_sales (sales_date, book_id, units) "
+            + "select cast(o.order_date as date), ol.book_id, sum(ol.quantity) from orders o "
+            + "join order_lines ol on ol.order_id = o.order_id "
+            + "where o.order_date >= :from and o.order_date < :until "
+            + "group by cast(o.order_date as date), ol.book_id", nativeQuery = true)
+    int rebuild(@Param("from") LocalDateTime from, @Param("until") LocalDateTime until);
+
+}
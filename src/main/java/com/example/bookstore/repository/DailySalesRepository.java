@@ -0,0 +1,39 @@
+package com.example.bookstore.repository;
+
+import com.example.bookstore.model.DailySales;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface DailySalesRepository extends JpaRepository<DailySales, LocalDate> {
+
+    List<DailySales> findBySalesDateBetweenOrderBySalesDate(LocalDate from, LocalDate to);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = RepositoryHints.DAILY_SALES_SPACE))
+    @Query(value = "insert into daily_sales (sales_date, order_count, revenue) values (:day, :orders, :revenue) "
+            + "on duplicate key update order_count = order_count + :orders, revenue = revenue + :revenue",
+            nativeQuery = true)
+    int add(@Param("day") LocalDate day, @Param("orders") long orders, @Param("revenue") double revenue);
+
+    @Modifying
+    @Query("delete from DailySales s where s.salesDate between :from and :to")
+    int deleteBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = RepositoryHints.DAILY_SALES_SPACE))
+    @Query(value = "insert into daily_sales (sales_date, order_count, revenue) "
+            + "select cast(o.order_date as date), count(*), sum(o.total) from orders o "
+            + "where o.order_date >= :from and o.order_date < :until "
+            + "group by cast(o.order_date as date)", nativeQuery = true)
+    int rebuild(@Param("from") LocalDateTime from, @Param("until") LocalDateTime until);
+
+}
@@ -1,12 +1,66 @@
 package com.example.bookstore.repository;
 
 import com.example.bookstore.model.Order;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
+    @EntityGraph(attributePaths = "lines")
     List<Order> findByOrderDateBetween(LocalDateTime startOfDay, LocalDateTime endOfDay);
+
+    @EntityGraph(attributePaths = "lines")
+    @Query("select o from Order o order by o.orderId")
+    List<Order> findAllWithBooks();
+
+    @EntityGraph(attributePaths = "lines")
+    @Query("select o from Order o where o.orderId in :ids")
+    List<Order> findAllWithBooksByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select o.orderId from Order o")
+    Page<Long> findIds(Pageable pageable);
+
+    @EntityGraph(attributePaths = "lines")
+    Optional<Order> findWithBooksByOrderId(Long orderId);
+
+    @Query("select o.orderId from Order o where o.orderId > :after order by o.orderId")
+    List<Long> findIdsAfter(@Param("after") Long after, Limit limit);
+
+    // The id lookups below are answered from idx_orders_user_date / idx_orders_date alone
+
+    // Read-write so that an order placed a moment ago already has its owner
+    @Transactional
+    @Query("select o.user.id from Order o where o.orderId = :id")
+    Optional<Long> findUserIdById(@Param("id") Long id);
+
+    @Query("select o.orderId from Order o where o.user.id = :userId")
+    Slice<Long> findIdsByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("select o.orderId from Order o where o.orderDate between :from and :to")
+    Slice<Long> findIdsByOrderDateBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                          Pageable pageable);
+
+    @Query("select o.orderId from Order o where o.user.id = :userId and o.orderDate between :from and :to")
+    Slice<Long> findIdsByUserIdAndOrderDateBetween(@Param("userId") Long userId, @Param("from") LocalDateTime from,
+                                                   @Param("to") LocalDateTime to, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = RepositoryHints.EXPORT_FETCH_SIZE))
+    @Query("select o from Order o left join fetch o.lines order by o.orderId")
+    Stream<Order> streamAllOrderById();
 }
@@ -0,0 +1,33 @@
+package com.example.bookstore.repository;
+
+/**
+ * Query hint values shared by the repositories.
+ */
+final class RepositoryHints {
+
+    /**
+     * JDBC fetch size for the streaming export queries. MySQL Connector/J only honours it
+     * when the connection URL enables cursor fetching ({@code useCursorFetch=true}).
+     */
+    static final String EXPORT_FETCH_SIZE = "1000";
+
+    /**
+     * Query space of the native cart line statements. Without it Hibernate cannot tell which
+     * tables a native update touched and evicts every second-level cache region.
+     */
+    static final String CART_BOOKS_SPACE = "cart_books";
+
+    /**
+     * Query space of the native daily sales statements, see {@link #CART_BOOKS_SPACE}.
+     */
+    static final String DAILY_BOOK_SALES_SPACE = "daily_book_sales";
+
+    /**
+     * Query space of the native daily totals statements, see {@link #CART_BOOKS_SPACE}.
+     */
+    static final String DAILY_SALES_SPACE = "daily_sales";
+
+    private RepositoryHints() {
+    }
+
+}
@@ -1,7 +1,12 @@
 package com.example.bookstore.repository;
 
 import com.example.bookstore.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
+
 public interface UserRepository extends JpaRepository<User,Long> {
+
+    List<User> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
 }
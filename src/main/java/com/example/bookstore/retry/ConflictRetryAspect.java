@@ -0,0 +1,51 @@
+package com.example.bookstore.retry;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * Applies the {@link ConflictRetryPolicy} to methods annotated with {@link RetryOnConflict}.
+ * Ordered before the transaction interceptor, so that every attempt runs in a transaction of its own.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ConflictRetryAspect {
+
+    private final ConflictRetryPolicy policy;
+
+    public ConflictRetryAspect(ConflictRetryPolicy policy) {
+        this.policy = policy;
+    }
+
+    @Around("@annotation(com.example.bookstore.retry.RetryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+        String operation = joinPoint.getSignature().getDeclaringType().getSimpleName() + "."
+                + joinPoint.getSignature().getName();
+        try {
+            return policy.execute(operation, () -> {
+                try {
+                    return joinPoint.proceed();
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new CheckedFailure(e);
+                }
+            });
+        } catch (CheckedFailure e) {
+            throw e.getCause();
+        }
+    }
+
+    // Carries a checked exception of the advised method through the Supplier
+    private static final class CheckedFailure extends RuntimeException {
+
+        CheckedFailure(Throwable cause) {
+            super(cause);
+        }
+
+    }
+
+}
@@ -0,0 +1,95 @@
+package com.example.bookstore.retry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounded retry with exponential backoff for operations that fail on a concurrency conflict: an optimistic
+ * lock failure, a deadlock or a lock timeout. Each wait is drawn at random between half and all of the
+ * current backoff, so writers that collided do not collide again on the next attempt.
+ * Inside an outer transaction the operation runs once, since only the outer transaction can be retried.
+ */
+@Slf4j
+public class ConflictRetryPolicy {
+
+    static final String RETRIES = "bookstore.conflict.retries";
+
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final double multiplier;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @param maxAttempts Attempts in total, 1 to never retry
+     * @param initialBackoff Backoff before the second attempt
+     * @param maxBackoff Upper bound of the backoff
+     * @param multiplier Growth of the backoff after each attempt
+     * @param meterRegistry Registry of the retry counter
+     */
+    public ConflictRetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff, double multiplier,
+                               MeterRegistry meterRegistry) {
+        if (maxAttempts < 1 || initialBackoff.isNegative() || maxBackoff.compareTo(initialBackoff) < 0
+                || multiplier < 1) {
+            throw new IllegalArgumentException("Invalid retry policy: " + maxAttempts + " attempts, backoff "
+                    + initialBackoff + " to " + maxBackoff + ", multiplier " + multiplier);
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+        this.multiplier = multiplier;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Runs an operation, and runs it again after a backoff each time it fails on a conflict
+     * @param operation Name of the operation, for the metrics and the log
+     * @param action Operation to run, must start its own transaction
+     * @return Result of the first attempt that succeeds
+     * @param <T> Type of the result
+     * @throws ConcurrencyFailureException When the last attempt fails on a conflict
+     */
+    public <T> T execute(String operation, Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return action.get();
+        }
+        long backoff = initialBackoffNanos;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (ConcurrencyFailureException ex) {
+                if (attempt >= maxAttempts) {
+                    log.warn("execute() - {} still conflicting after {} attempts: {}", operation, attempt,
+                            ex.getMessage());
+                    throw ex;
+                }
+                meterRegistry.counter(RETRIES, "operation", operation).increment();
+                if (!pause(backoff)) {
+                    throw ex;
+                }
+                backoff = Math.min(maxBackoffNanos, (long) (backoff * multiplier));
+            }
+        }
+    }
+
+    private static boolean pause(long backoffNanos) {
+        if (backoffNanos == 0) {
+            return true;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(backoffNanos / 2, backoffNanos + 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+}
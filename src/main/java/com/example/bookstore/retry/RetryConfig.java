@@ -0,0 +1,30 @@
+package com.example.bookstore.retry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Wires the conflict retry policy from the bookstore.retry.* properties.
+ */
+@Configuration
+public class RetryConfig {
+
+    @Bean
+    public ConflictRetryPolicy conflictRetryPolicy(@Value("${bookstore.retry.max-attempts:3}") int maxAttempts,
+                                                   @Value("${bookstore.retry.initial-backoff:10ms}") Duration initialBackoff,
+                                                   @Value("${bookstore.retry.max-backoff:200ms}") Duration maxBackoff,
+                                                   @Value("${bookstore.retry.multiplier:2}") double multiplier,
+                                                   MeterRegistry meterRegistry) {
+        return new ConflictRetryPolicy(maxAttempts, initialBackoff, maxBackoff, multiplier, meterRegistry);
+    }
+
+    @Bean
+    public ConflictRetryAspect conflictRetryAspect(ConflictRetryPolicy conflictRetryPolicy) {
+        return new ConflictRetryAspect(conflictRetryPolicy);
+    }
+
+}
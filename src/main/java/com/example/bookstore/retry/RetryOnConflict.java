@@ -0,0 +1,19 @@
+package com.example.bookstore.retry;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs the annotated service method again, in a new transaction, when it loses a concurrent update.
+ * Only put it on operations that are safe to repeat once their transaction has rolled back, and not on
+ * ones that check a version sent by the client, since those fail again on every attempt.
+ * @see ConflictRetryPolicy
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+}
@@ -0,0 +1,15 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.service.dto.BookImportBatchDTO;
+import com.example.bookstore.service.dto.BookImportReportDTO;
+
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+public interface BookImportService {
+
+    BookImportReportDTO importJson(InputStream json, Consumer<BookImportBatchDTO> progress);
+
+    BookImportReportDTO importCsv(InputStream csv, Consumer<BookImportBatchDTO> progress);
+
+}
@@ -0,0 +1,12 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.service.dto.BookDTO;
+import com.example.bookstore.service.dto.PageDTO;
+
+public interface BookSearchService {
+
+    PageDTO<BookDTO> searchBooks(String query, int page, int size);
+
+    long rebuildIndex();
+
+}
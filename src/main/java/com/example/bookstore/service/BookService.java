@@ -1,10 +1,15 @@
 package com.example.bookstore.service;
 
 import com.example.bookstore.service.dto.BookDTO;
+import com.example.bookstore.service.dto.CacheStatsDTO;
+import com.example.bookstore.service.dto.CursorPageDTO;
+import com.example.bookstore.service.dto.PageDTO;
+import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface BookService {
 
@@ -12,10 +17,24 @@ public interface BookService {
 
     public List<BookDTO> getAllBooks();
 
+    PageDTO<BookDTO> getBooks(Pageable pageable);
+
+    CursorPageDTO<BookDTO> getBooksAfter(Long after, int size);
+
+    long exportBooks(Consumer<BookDTO> sink);
+
     Optional<BookDTO> getBookById(Long id);
 
+    Optional<Long> getBookVersion(Long id);
+
+    String getCatalogVersion();
+
     void deleteBook(Long id);
 
     BookDTO updateBookByFields(Long id, Map<String, Object> fields);
 
+    BookDTO updateBookByFields(Long id, Map<String, Object> fields, Long expectedVersion);
+
+    CacheStatsDTO getCacheStats();
+
 }
@@ -1,9 +1,14 @@
 package com.example.bookstore.service;
 
 import com.example.bookstore.service.dto.CartDTO;
+import com.example.bookstore.service.dto.CartOperationDTO;
+import com.example.bookstore.service.dto.CartPricingDTO;
+import com.example.bookstore.service.dto.CursorPageDTO;
+import com.example.bookstore.service.dto.ItemMap;
+import com.example.bookstore.service.dto.PageDTO;
+import org.springframework.data.domain.Pageable;
 
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 
 public interface CartService {
@@ -14,13 +19,25 @@ public interface CartService {
 
     void removeBook(Long cartId, Long bookId);
 
+    CartDTO applyOperations(Long cartId, List<CartOperationDTO> operations);
+
+    CartDTO applyOperations(Long cartId, List<CartOperationDTO> operations, Long expectedVersion);
+
     void deleteCart(Long cartId);
 
     Optional<CartDTO> displayCart(Long cartId);
 
-    Map<Long, Integer> viewBooksInCart(Long cartId);
+    Optional<Long> getCartVersion(Long cartId);
+
+    ItemMap viewBooksInCart(Long cartId);
 
     Double calculateTotalPrice(Long cartId);
 
+    CartPricingDTO priceCart(Long cartId);
+
     List<CartDTO> getAllCarts() ;
+
+    PageDTO<CartDTO> getCarts(Pageable pageable);
+
+    CursorPageDTO<CartDTO> getCartsAfter(Long after, int size);
 }
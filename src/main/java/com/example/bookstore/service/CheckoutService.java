@@ -0,0 +1,13 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.service.dto.CheckoutStatusDTO;
+
+import java.util.Optional;
+
+public interface CheckoutService {
+
+    CheckoutStatusDTO submitCheckout(Long userId, Long cartId);
+
+    Optional<CheckoutStatusDTO> getCheckoutStatus(Long userId, Long requestId);
+
+}
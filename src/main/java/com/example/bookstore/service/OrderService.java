@@ -1,20 +1,36 @@
 package com.example.bookstore.service;
 
+import com.example.bookstore.service.dto.CursorPageDTO;
 import com.example.bookstore.service.dto.OrderDTO;
+import com.example.bookstore.service.dto.OrderDetailDTO;
+import com.example.bookstore.service.dto.PageDTO;
+import com.example.bookstore.service.dto.SliceDTO;
 import com.example.bookstore.model.Order;
+import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface OrderService {
 
     List<OrderDTO> allOrders();
 
+    PageDTO<OrderDTO> getOrders(Pageable pageable);
+
+    CursorPageDTO<OrderDTO> getOrdersAfter(Long after, int size);
+
+    long exportOrders(Consumer<OrderDTO> sink);
+
     List<OrderDTO> filterOrdersByDate(LocalDate date);
 
+    SliceDTO<OrderDTO> findOrders(Long userId, LocalDate from, LocalDate to, int page, int size);
+
     Optional<OrderDTO> getOrderById(Long orderId);
 
+    Optional<OrderDetailDTO> getOrderDetail(Long orderId);
+
     Double totalBill(Long orderId);
 
     void cancelOrder(Long orderId);
@@ -0,0 +1,24 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.model.Order;
+import com.example.bookstore.service.dto.DailySalesDTO;
+import com.example.bookstore.service.dto.MonthlySalesDTO;
+import com.example.bookstore.service.dto.SalesRebuildReportDTO;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+public interface SalesReportService {
+
+    void recordOrder(Order order);
+
+    void reverseOrder(Order order);
+
+    List<DailySalesDTO> getDailySales(LocalDate from, LocalDate to);
+
+    List<MonthlySalesDTO> getMonthlySales(YearMonth from, YearMonth to);
+
+    SalesRebuildReportDTO rebuild(LocalDate from, LocalDate to);
+
+}
@@ -1,8 +1,11 @@
 package com.example.bookstore.service;
 
+import com.example.bookstore.service.dto.CursorPageDTO;
 import com.example.bookstore.service.dto.OrderDTO;
+import com.example.bookstore.service.dto.PageDTO;
 import com.example.bookstore.service.dto.UserCreateDTO;
 import com.example.bookstore.service.dto.UserDTO;
+import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 import java.util.Optional;
@@ -15,6 +18,10 @@ public interface UserService {
 
     List<UserDTO> getAllUsers();
 
+    PageDTO<UserDTO> getUsers(Pageable pageable);
+
+    CursorPageDTO<UserDTO> getUsersAfter(Long after, int size);
+
     void deleteUser(Long id);
 
     Optional<OrderDTO> confirmAndConvertCartToOrder(Long userId, Long cartId);
@@ -0,0 +1,146 @@
+package com.example.bookstore.service.cache;
+
+import com.example.bookstore.service.dto.CacheStatsDTO;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Small in-process cache that keeps at most {@code maximumSize} entries, evicting the least recently used one
+ * when full, and drops entries once they are older than {@code timeToLive}.
+ * Hit, miss and eviction counts are kept for monitoring.
+ * <p>
+ * Keys are spread by hash over up to {@value #MAX_STRIPES} stripes, each locked on its own and holding an equal
+ * share of {@code maximumSize} in least recently used order, so lookups of different keys rarely wait on each other.
+ * Caches too small to give every stripe {@value #MIN_STRIPE_SIZE} entries use fewer stripes, down to a single one
+ * with an exact least recently used order.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class BoundedCache<K, V> {
+
+    static final int MAX_STRIPES = 16;
+    static final int MIN_STRIPE_SIZE = 64;
+
+    private final int maximumSize;
+    private final long timeToLiveNanos;
+    private final Stripe<K, V>[] stripes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public BoundedCache(int maximumSize, Duration timeToLive) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Cache maximum size must be greater than zero");
+        }
+        this.maximumSize = maximumSize;
+        this.timeToLiveNanos = timeToLive.toNanos();
+
+        // A power of two, so that a stripe is picked with a mask
+        int count = Integer.highestOneBit(Math.max(1, Math.min(MAX_STRIPES, maximumSize / MIN_STRIPE_SIZE)));
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe<>(maximumSize / count + (i < maximumSize % count ? 1 : 0), evictions);
+        }
+    }
+
+    /**
+     * Returns the cached value, or null when it is absent or expired
+     * @param key Key to look up
+     * @return The cached value or null
+     */
+    public V get(K key) {
+        long now = System.nanoTime();
+        Stripe<K, V> stripe = stripeFor(key);
+        synchronized (stripe) {
+            Entry<V> entry = stripe.get(key);
+            if (entry != null && now - entry.createdAt > timeToLiveNanos) {
+                stripe.remove(key);
+                evictions.increment();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value;
+        }
+    }
+
+    public void put(K key, V value) {
+        Entry<V> entry = new Entry<>(value, System.nanoTime());
+        Stripe<K, V> stripe = stripeFor(key);
+        synchronized (stripe) {
+            stripe.put(key, entry);
+        }
+    }
+
+    public void invalidate(K key) {
+        Stripe<K, V> stripe = stripeFor(key);
+        synchronized (stripe) {
+            stripe.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        for (Stripe<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    public CacheStatsDTO stats() {
+        int size = 0;
+        for (Stripe<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return CacheStatsDTO.builder()
+                .size(size)
+                .maximumSize(maximumSize)
+                .hits(hits.sum())
+                .misses(misses.sum())
+                .evictions(evictions.sum())
+                .build();
+    }
+
+    private Stripe<K, V> stripeFor(K key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    // One share of the entries, in access order. Only used while holding its own lock
+    private static final class Stripe<K, V> extends LinkedHashMap<K, Entry<V>> {
+
+        private final int capacity;
+        private final LongAdder evictions;
+
+        Stripe(int capacity, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+
+    }
+
+    private record Entry<V>(V value, long createdAt) {
+    }
+
+}
@@ -13,5 +13,10 @@ public class BookDTO {
     private String title;
     private String author;
     private double price;
+    private Long version;
+
+    public BookDTO(Long id, String title, String author, double price) {
+        this(id, title, author, price, null);
+    }
 
 }
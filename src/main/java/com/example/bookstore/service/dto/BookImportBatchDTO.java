@@ -0,0 +1,21 @@
+package com.example.bookstore.service.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+public class BookImportBatchDTO {
+
+    private int batch;
+    private long firstRow;
+    private long lastRow;
+    private int imported;
+    private int rejected;
+    private List<ImportFailureDTO> failures;
+
+}
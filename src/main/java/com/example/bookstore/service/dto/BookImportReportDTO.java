@@ -0,0 +1,19 @@
+package com.example.bookstore.service.dto;
+
+import lombok.*;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+public class BookImportReportDTO {
+
+    private long rows;
+    private long imported;
+    private long rejected;
+    private int batches;
+    private boolean completed;
+    private String error;
+
+}
@@ -0,0 +1,18 @@
+package com.example.bookstore.service.dto;
+
+import lombok.*;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+public class CacheStatsDTO {
+
+    private int size;
+    private int maximumSize;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+}
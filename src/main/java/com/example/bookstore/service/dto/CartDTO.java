@@ -2,8 +2,6 @@ package com.example.bookstore.service.dto;
 
 import lombok.*;
 
-import java.util.Map;
-
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
@@ -13,6 +11,11 @@ public class CartDTO {
 
     private Long cartId;
     private Long userId;
-    private Map<Long, Integer> books;
+    private ItemMap books;
+    private Long version;
+
+    public CartDTO(Long cartId, Long userId, ItemMap books) {
+        this(cartId, userId, books, null);
+    }
 
 }
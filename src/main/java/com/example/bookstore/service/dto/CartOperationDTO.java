@@ -0,0 +1,30 @@
+package com.example.bookstore.service.dto;
+
+import lombok.*;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+public class CartOperationDTO {
+
+    /**
+     * ADD adds the quantity to the line, SET replaces it (0 removes the line) and REMOVE deletes the line
+     */
+    public enum Type {
+        ADD,
+        SET,
+        REMOVE
+    }
+
+    private Type op;
+    private Long bookId;
+    private Integer quantity;
+
+    @Override
+    public String toString() {
+        return op + " " + bookId + (quantity == null ? "" : " " + quantity);
+    }
+
+}
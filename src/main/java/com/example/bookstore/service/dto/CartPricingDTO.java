@@ -0,0 +1,20 @@
+package com.example.bookstore.service.dto;
+
+import lombok.*;
+
+import java.util.Map;
+import java.util.Set;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+public class CartPricingDTO {
+
+    private Long cartId;
+    private Map<Long, Double> unitPrices;
+    private Set<Long> unpricedBookIds;
+    private double total;
+
+}
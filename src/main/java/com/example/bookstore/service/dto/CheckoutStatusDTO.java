@@ -0,0 +1,24 @@
+package com.example.bookstore.service.dto;
+
+import com.example.bookstore.model.CheckoutStatus;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+public class CheckoutStatusDTO {
+
+    private Long requestId;
+    private Long userId;
+    private Long cartId;
+    private CheckoutStatus status;
+    private Long orderId;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+
+}
@@ -0,0 +1,18 @@
+package com.example.bookstore.service.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+public class CursorPageDTO<T> {
+
+    private List<T> items;
+    private int size;
+    private Long next;
+
+}
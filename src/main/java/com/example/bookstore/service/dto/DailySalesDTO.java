@@ -0,0 +1,21 @@
+package com.example.bookstore.service.dto;
+
+import lombok.*;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+public class DailySalesDTO {
+
+    private LocalDate date;
+    private long orders;
+    private double revenue;
+    private long units;
+    private Map<Long, Long> books;
+
+}
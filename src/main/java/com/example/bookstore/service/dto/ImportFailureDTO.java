@@ -0,0 +1,15 @@
+package com.example.bookstore.service.dto;
+
+import lombok.*;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+public class ImportFailureDTO {
+
+    private long row;
+    private String message;
+
+}
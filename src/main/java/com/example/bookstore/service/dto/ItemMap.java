@@ -0,0 +1,263 @@
+package com.example.bookstore.service.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Line items of a cart or order: quantity by book id, kept in two parallel arrays sorted by book id.
+ * A line costs 12 bytes instead of the boxed key, boxed value and node of a {@code HashMap<Long, Integer>}.
+ * Lookups are binary searches and updates shift the tail of the arrays, which is cheap at cart sizes.
+ * <p>
+ * Serialized as a JSON object of book id to quantity, the same wire format as {@code Map<Long, Integer>}.
+ */
+@JsonSerialize(using = ItemMap.Writer.class)
+@JsonDeserialize(using = ItemMap.Reader.class)
+public final class ItemMap {
+
+    private static final long[] NO_KEYS = {};
+    private static final int[] NO_VALUES = {};
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    public ItemMap() {
+        this.keys = NO_KEYS;
+        this.values = NO_VALUES;
+    }
+
+    public ItemMap(int capacity) {
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+    }
+
+    /**
+     * Copies a boxed map, such as an entity's element collection
+     * @param items Quantity by book id, or null for no items
+     * @return Items sorted by book id
+     */
+    public static ItemMap of(Map<Long, Integer> items) {
+        return of(items, Integer::intValue);
+    }
+
+    /**
+     * Copies the quantities of a map of richer lines, such as the lines of an order
+     * @param items Line by book id, or null for no items
+     * @param quantity Quantity of a line
+     * @return Items sorted by book id
+     */
+    public static <V> ItemMap of(Map<Long, V> items, ToIntFunction<? super V> quantity) {
+        if (items == null || items.isEmpty()) {
+            return new ItemMap();
+        }
+        ItemMap copy = new ItemMap(items.size());
+        for (Long key : items.keySet()) {
+            copy.keys[copy.size++] = key;
+        }
+        // Sorting the keys alone and looking the values up again is O(n log n) whatever order the map iterates in
+        Arrays.sort(copy.keys, 0, copy.size);
+        for (int i = 0; i < copy.size; i++) {
+            copy.values[i] = quantity.applyAsInt(items.get(copy.keys[i]));
+        }
+        return copy;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    public int getOrDefault(long key, int defaultValue) {
+        int index = indexOf(key);
+        return index >= 0 ? values[index] : defaultValue;
+    }
+
+    public long keyAt(int index) {
+        checkIndex(index);
+        return keys[index];
+    }
+
+    public int valueAt(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    public void put(long key, int value) {
+        int index = indexOf(key);
+        if (index >= 0) {
+            values[index] = value;
+        } else {
+            insert(-index - 1, key, value);
+        }
+    }
+
+    /**
+     * Adds to the quantity of a line, creating it when absent
+     * @param key Book id
+     * @param quantity Quantity to add
+     * @return The new quantity of the line
+     */
+    public int add(long key, int quantity) {
+        int index = indexOf(key);
+        if (index >= 0) {
+            return values[index] += quantity;
+        }
+        insert(-index - 1, key, quantity);
+        return quantity;
+    }
+
+    public boolean remove(long key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    public void forEach(LineConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept(keys[i], values[i]);
+        }
+    }
+
+    public long[] keys() {
+        return Arrays.copyOf(keys, size);
+    }
+
+    /**
+     * Copies the items into a boxed map, for the entity's element collection
+     * @return Quantity by book id
+     */
+    public Map<Long, Integer> toMap() {
+        Map<Long, Integer> map = HashMap.newHashMap(size);
+        forEach(map::put);
+        return map;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        return other instanceof ItemMap items
+                && Arrays.equals(keys, 0, size, items.keys, 0, items.size)
+                && Arrays.equals(values, 0, size, items.values, 0, items.size);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < size; i++) {
+            hash = 31 * hash + Long.hashCode(keys[i]);
+            hash = 31 * hash + values[i];
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("{");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                text.append(", ");
+            }
+            text.append(keys[i]).append('=').append(values[i]);
+        }
+        return text.append('}').toString();
+    }
+
+    private int indexOf(long key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for " + size + " items");
+        }
+    }
+
+    private void insert(int index, long key, int value) {
+        if (size == keys.length) {
+            int capacity = Math.max(4, size + (size >> 1));
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(values, index, values, index + 1, size - index);
+        keys[index] = key;
+        values[index] = value;
+        size++;
+    }
+
+    @FunctionalInterface
+    public interface LineConsumer {
+
+        void accept(long bookId, int quantity);
+
+    }
+
+    public static final class Writer extends JsonSerializer<ItemMap> {
+
+        @Override
+        public void serialize(ItemMap items, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject(items, items.size);
+            for (int i = 0; i < items.size; i++) {
+                generator.writeFieldName(Long.toString(items.keys[i]));
+                generator.writeNumber(items.values[i]);
+            }
+            generator.writeEndObject();
+        }
+
+    }
+
+    public static final class Reader extends JsonDeserializer<ItemMap> {
+
+        @Override
+        public ItemMap deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (!parser.isExpectedStartObjectToken()) {
+                return (ItemMap) context.handleUnexpectedToken(ItemMap.class, parser);
+            }
+            ItemMap items = new ItemMap();
+            String field;
+            while ((field = parser.nextFieldName()) != null) {
+                long key;
+                try {
+                    key = Long.parseLong(field);
+                } catch (NumberFormatException e) {
+                    return (ItemMap) context.handleWeirdKey(Long.class, field, "not a book id");
+                }
+                JsonToken value = parser.nextToken();
+                if (value != JsonToken.VALUE_NUMBER_INT) {
+                    return (ItemMap) context.handleUnexpectedToken(Integer.class, parser);
+                }
+                items.put(key, parser.getIntValue());
+            }
+            return items;
+        }
+
+    }
+
+}
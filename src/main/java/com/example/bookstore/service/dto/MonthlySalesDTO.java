@@ -0,0 +1,21 @@
+package com.example.bookstore.service.dto;
+
+import lombok.*;
+
+import java.time.YearMonth;
+import java.util.Map;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+public class MonthlySalesDTO {
+
+    private YearMonth month;
+    private long orders;
+    private double revenue;
+    private long units;
+    private Map<Long, Long> books;
+
+}
@@ -3,7 +3,6 @@ package com.example.bookstore.service.dto;
 import lombok.*;
 
 import java.time.LocalDateTime;
-import java.util.Map;
 
 @AllArgsConstructor
 @NoArgsConstructor
@@ -14,7 +13,7 @@ public class OrderDTO {
 
     private Long orderId;
     private Long userId;
-    private Map<Long, Integer> books;
+    private ItemMap books;
     private Double total;
     private LocalDateTime orderDate;
 
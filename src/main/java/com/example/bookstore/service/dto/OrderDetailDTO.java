@@ -0,0 +1,21 @@
+package com.example.bookstore.service.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+public class OrderDetailDTO {
+
+    private Long orderId;
+    private Long userId;
+    private LocalDateTime orderDate;
+    private List<OrderLineDTO> lines;
+    private Double total;
+
+}
@@ -0,0 +1,18 @@
+package com.example.bookstore.service.dto;
+
+import lombok.*;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+public class OrderLineDTO {
+
+    private Long bookId;
+    private String title;
+    private Double unitPrice;
+    private int quantity;
+    private Double lineTotal;
+
+}
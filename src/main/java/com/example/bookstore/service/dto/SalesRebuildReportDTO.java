@@ -0,0 +1,19 @@
+package com.example.bookstore.service.dto;
+
+import lombok.*;
+
+import java.time.LocalDate;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+public class SalesRebuildReportDTO {
+
+    private LocalDate from;
+    private LocalDate to;
+    private int chunks;
+    private int days;
+
+}
@@ -0,0 +1,19 @@
+package com.example.bookstore.service.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+public class SliceDTO<T> {
+
+    private List<T> items;
+    private int page;
+    private int size;
+    private boolean hasNext;
+
+}
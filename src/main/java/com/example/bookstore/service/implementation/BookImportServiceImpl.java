@@ -0,0 +1,279 @@
+package com.example.bookstore.service.implementation;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.service.BookImportService;
+import com.example.bookstore.service.dto.BookDTO;
+import com.example.bookstore.service.dto.BookImportBatchDTO;
+import com.example.bookstore.service.dto.BookImportReportDTO;
+import com.example.bookstore.service.dto.ImportFailureDTO;
+import com.example.bookstore.service.mapper.BookMapper;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+@Slf4j
+@Service
+public class BookImportServiceImpl implements BookImportService {
+
+    private static final List<String> CSV_HEADER = List.of("title", "author", "price");
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final BookSearchServiceImpl bookSearchService;
+    private final int batchSize;
+
+    public BookImportServiceImpl(EntityManager entityManager, PlatformTransactionManager transactionManager,
+                                 ObjectMapper objectMapper, BookSearchServiceImpl bookSearchService,
+                                 @Value("${bookstore.import.batch-size:1000}") int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Import batch size must be greater than zero");
+        }
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.bookSearchService = bookSearchService;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Imports a JSON array of books, reading one element at a time
+     * @param json Stream holding a JSON array of book objects
+     * @param progress Receives the result of every written batch
+     * @return Totals of the import
+     */
+    @Override
+    public BookImportReportDTO importJson(InputStream json, Consumer<BookImportBatchDTO> progress) {
+        Importer importer = new Importer(progress);
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                return importer.abort("Expected a JSON array of books");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                importer.add(objectMapper.readValue(parser, BookDTO.class));
+            }
+            if (token != JsonToken.END_ARRAY) {
+                return importer.abort("Expected a book object at row " + (importer.rows + 1));
+            }
+        } catch (IOException e) {
+            return importer.abort("Malformed JSON after row " + importer.rows + ": " + e.getMessage());
+        }
+
+        return importer.finish();
+    }
+
+    /**
+     * Imports CSV lines of title, author and price, reading one line at a time.
+     * A header line with these column names is skipped
+     * @param csv Stream holding the CSV document
+     * @param progress Receives the result of every written batch
+     * @return Totals of the import
+     */
+    @Override
+    public BookImportReportDTO importCsv(InputStream csv, Consumer<BookImportBatchDTO> progress) {
+        Importer importer = new Importer(progress);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8))) {
+            String line;
+            boolean first = true;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                List<String> fields = parseCsvLine(line);
+                if (first && fields.stream().map(String::trim).map(String::toLowerCase).toList().equals(CSV_HEADER)) {
+                    first = false;
+                    continue;
+                }
+                first = false;
+                importer.add(fields);
+            }
+        } catch (IOException e) {
+            return importer.abort("Failed to read CSV after row " + importer.rows + ": " + e.getMessage());
+        }
+
+        return importer.finish();
+    }
+
+    private static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>(CSV_HEADER.size());
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String validate(BookDTO book) {
+        if (book.getTitle() == null || book.getTitle().isBlank()) {
+            return "Title is required";
+        }
+        if (book.getAuthor() == null || book.getAuthor().isBlank()) {
+            return "Author is required";
+        }
+        if (!Double.isFinite(book.getPrice()) || book.getPrice() < 0) {
+            return "Price must be zero or greater";
+        }
+        return null;
+    }
+
+    /**
+     * Collects rows into batches of {@code batchSize} rows and writes each batch in its own transaction,
+     * so only one batch is ever held in memory
+     */
+    private final class Importer {
+
+        private final Consumer<BookImportBatchDTO> progress;
+        private final List<Book> pending = new ArrayList<>();
+        private final List<ImportFailureDTO> failures = new ArrayList<>();
+
+        private long rows;
+        private long imported;
+        private long rejected;
+        private int batches;
+        private long batchFirstRow = 1;
+
+        private Importer(Consumer<BookImportBatchDTO> progress) {
+            this.progress = progress;
+        }
+
+        private void add(BookDTO book) {
+            String problem = validate(book);
+            if (problem != null) {
+                reject(problem);
+                return;
+            }
+            rows++;
+            pending.add(new Book(null, book.getTitle().trim(), book.getAuthor().trim(), book.getPrice()));
+            writeBatchIfFull();
+        }
+
+        private void add(List<String> fields) {
+            if (fields.size() != CSV_HEADER.size()) {
+                reject("Expected " + CSV_HEADER.size() + " columns but found " + fields.size());
+                return;
+            }
+            double price;
+            try {
+                price = Double.parseDouble(fields.get(2).trim());
+            } catch (NumberFormatException e) {
+                reject("Price is not a number: " + fields.get(2));
+                return;
+            }
+            add(new BookDTO(null, fields.get(0), fields.get(1), price));
+        }
+
+        private void reject(String message) {
+            rows++;
+            failures.add(new ImportFailureDTO(rows, message));
+            writeBatchIfFull();
+        }
+
+        private void writeBatchIfFull() {
+            if (rows - batchFirstRow + 1 == batchSize) {
+                writeBatch();
+            }
+        }
+
+        private void writeBatch() {
+            if (rows < batchFirstRow) {
+                return;
+            }
+            int written = 0;
+            if (!pending.isEmpty()) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+                        pending.forEach(entityManager::persist);
+                        entityManager.flush();
+                        entityManager.clear();
+                        pending.forEach(book -> bookSearchService.indexAfterCommit(BookMapper.toBookDTO(book)));
+                    });
+                    written = pending.size();
+                } catch (RuntimeException e) {
+                    log.warn("importBooks() - Batch {} rejected: {}", batches + 1, e.getMessage());
+                    failures.add(new ImportFailureDTO(batchFirstRow, "Batch rejected: " + e.getMessage()));
+                }
+            }
+
+            batches++;
+            imported += written;
+            rejected += (rows - batchFirstRow + 1) - written;
+            BookImportBatchDTO batch = BookImportBatchDTO.builder()
+                    .batch(batches)
+                    .firstRow(batchFirstRow)
+                    .lastRow(rows)
+                    .imported(written)
+                    .rejected((int) (rows - batchFirstRow + 1) - written)
+                    .failures(new ArrayList<>(failures))
+                    .build();
+            log.info("importBooks() - Batch {} written. Rows {}-{}, imported {}, rejected {}",
+                    batch.getBatch(), batch.getFirstRow(), batch.getLastRow(), batch.getImported(), batch.getRejected());
+
+            pending.clear();
+            failures.clear();
+            batchFirstRow = rows + 1;
+            progress.accept(batch);
+        }
+
+        private BookImportReportDTO finish() {
+            writeBatch();
+            return report(true, null);
+        }
+
+        private BookImportReportDTO abort(String error) {
+            writeBatch();
+            return report(false, error);
+        }
+
+        private BookImportReportDTO report(boolean completed, String error) {
+            return BookImportReportDTO.builder()
+                    .rows(rows)
+                    .imported(imported)
+                    .rejected(rejected)
+                    .batches(batches)
+                    .completed(completed)
+                    .error(error)
+                    .build();
+        }
+    }
+
+}
@@ -0,0 +1,251 @@
+package com.example.bookstore.service.implementation;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.repository.CatalogRevisionRepository;
+import com.example.bookstore.service.BookSearchService;
+import com.example.bookstore.service.dto.BookDTO;
+import com.example.bookstore.service.dto.PageDTO;
+import com.example.bookstore.service.mapper.BookMapper;
+import com.example.bookstore.service.search.BookSearchIndex;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Book search served from a {@link BookSearchIndex}. The index is loaded from the books table in the background
+ * once the application is ready and is then kept current by every book write of this instance. Books written through
+ * other instances are picked up by a refresh that runs whenever the catalog revision has moved; until the first load
+ * completes, searches fall back to a LIKE query.
+ * Loads read the primary: a book missed on a lagging replica would only be read again once it changes
+ */
+@Slf4j
+@Service
+public class BookSearchServiceImpl implements BookSearchService {
+
+    // Deepest match a search can be paged to: every match up to the page is ranked for each request
+    static final int MAX_RESULTS = 10_000;
+
+    private final BookRepository bookRepository;
+    private final CatalogRevisionRepository catalogRevisionRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean loadOnStartup;
+    private final Duration refreshInterval;
+    private final ScheduledExecutorService loader;
+    private final BookSearchIndex index = new BookSearchIndex();
+    private volatile boolean ready;
+    // Catalog revision read by the last load or refresh
+    private volatile long indexedRevision = -1;
+
+    public BookSearchServiceImpl(BookRepository bookRepository, CatalogRevisionRepository catalogRevisionRepository,
+                                 EntityManager entityManager, PlatformTransactionManager transactionManager,
+                                 @Value("${bookstore.search.load-on-startup:true}") boolean loadOnStartup,
+                                 @Value("${bookstore.search.refresh-interval:30s}") Duration refreshInterval) {
+        this.bookRepository = bookRepository;
+        this.catalogRevisionRepository = catalogRevisionRepository;
+        this.entityManager = entityManager;
+        // Not read-only, so that the loads are routed to the primary
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.loadOnStartup = loadOnStartup;
+        this.refreshInterval = refreshInterval;
+        this.loader = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("book-search-loader").daemon().factory());
+    }
+
+    /**
+     * Load the index once the application is ready, then refresh it at a fixed delay. A zero refresh interval
+     * leaves the index to the writes of this instance
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadInBackground() {
+        if (loadOnStartup) {
+            loader.execute(() -> runSafely("rebuildIndex", this::rebuildIndex));
+        }
+        if (!refreshInterval.isZero()) {
+            loader.scheduleWithFixedDelay(() -> runSafely("refreshIndex", this::refreshIndex),
+                    refreshInterval.toMillis(), refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        loader.shutdownNow();
+    }
+
+    /**
+     * Search books by words or word prefixes of their title and author
+     * @param query Search text
+     * @param page Page number
+     * @param size Page size
+     * @return One page of matching books, best match first
+     * @throws IllegalArgumentException If the page ends past the first {@value #MAX_RESULTS} matches
+     */
+    @Override
+    public PageDTO<BookDTO> searchBooks(String query, int page, int size) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search text is required");
+        }
+        Pageable pageable = Paging.of(page, size, Sort.unsorted());
+        if (pageable.getOffset() + pageable.getPageSize() > MAX_RESULTS) {
+            throw new IllegalArgumentException("Search results can only be paged to the first " + MAX_RESULTS
+                    + " matches, refine the search instead");
+        }
+        if (!ready) {
+            return searchWithLike(query, pageable);
+        }
+
+        BookSearchIndex.SearchHits hits = index.search(query, (int) pageable.getOffset(), pageable.getPageSize());
+        return PageDTO.<BookDTO>builder()
+                .items(hits.items())
+                .page(pageable.getPageNumber())
+                .size(pageable.getPageSize())
+                .totalElements(hits.total())
+                .totalPages((int) ((hits.total() + pageable.getPageSize() - 1) / pageable.getPageSize()))
+                .build();
+    }
+
+    PageDTO<BookDTO> searchWithLike(String query, Pageable pageable) {
+        String pattern = "%" + query.trim().toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return Paging.toPageDTO(bookRepository.searchByTitleOrAuthor(pattern, pageable), BookMapper::toBookDTO);
+    }
+
+    /**
+     * Load every book into the index, and drop the books that no longer exist. Writes made while the load runs are kept
+     * @return Number of books read
+     */
+    @Override
+    public synchronized long rebuildIndex() {
+        long started = System.nanoTime();
+        index.beginLoad();
+        try {
+            long count = transactionTemplate.execute(status -> {
+                long revision = catalogRevision();
+                Set<Long> read = new HashSet<>();
+                try (Stream<Book> books = bookRepository.streamAllOrderById()) {
+                    for (Book book : (Iterable<Book>) books::iterator) {
+                        index.load(BookMapper.toBookDTO(book));
+                        entityManager.detach(book);
+                        read.add(book.getId());
+                    }
+                }
+                index.removeUnread(read);
+                indexedRevision = revision;
+                return (long) read.size();
+            });
+            ready = true;
+            log.info("rebuildIndex() - Indexed {} books in {} ms", count, (System.nanoTime() - started) / 1_000_000);
+            return count;
+        } finally {
+            index.endLoad();
+        }
+    }
+
+    /**
+     * Bring the index up to date with the books written through other instances. Only the id and version of every
+     * book are read, then the books whose version is not the indexed one; books that no longer exist are dropped.
+     * Does nothing before the first load, or while the catalog revision is the one the index was last brought to
+     * @return Number of books read again or dropped
+     */
+    public synchronized long refreshIndex() {
+        if (!ready) {
+            return 0;
+        }
+        long started = System.nanoTime();
+        index.beginLoad();
+        try {
+            long count = transactionTemplate.execute(status -> {
+                long revision = catalogRevision();
+                if (revision == indexedRevision) {
+                    return 0L;
+                }
+                Set<Long> read = new HashSet<>();
+                List<Long> changed = new ArrayList<>();
+                try (Stream<BookRepository.BookVersion> versions = bookRepository.streamVersionsOrderById()) {
+                    versions.forEach(book -> {
+                        read.add(book.getId());
+                        if (!index.contains(book.getId(), book.getVersion())) {
+                            changed.add(book.getId());
+                        }
+                    });
+                }
+                for (int from = 0; from < changed.size(); from += BookServiceImpl.LOOKUP_CHUNK_SIZE) {
+                    int to = Math.min(changed.size(), from + BookServiceImpl.LOOKUP_CHUNK_SIZE);
+                    for (Book book : bookRepository.findAllById(changed.subList(from, to))) {
+                        index.load(BookMapper.toBookDTO(book));
+                        entityManager.detach(book);
+                    }
+                }
+                int removed = index.removeUnread(read);
+                indexedRevision = revision;
+                return (long) changed.size() + removed;
+            });
+            if (count > 0) {
+                log.info("refreshIndex() - Refreshed {} books in {} ms", count, (System.nanoTime() - started) / 1_000_000);
+            }
+            return count;
+        } finally {
+            index.endLoad();
+        }
+    }
+
+    private long catalogRevision() {
+        return catalogRevisionRepository.findCatalogRevision().orElse(0L);
+    }
+
+    private static void runSafely(String operation, Runnable load) {
+        try {
+            load.run();
+        } catch (RuntimeException e) {
+            log.error("{}() - Failed to load the search index", operation, e);
+        }
+    }
+
+    /**
+     * Index a saved book once its transaction commits
+     * @param book Saved book
+     */
+    void indexAfterCommit(BookDTO book) {
+        afterCommit(() -> index.put(book));
+    }
+
+    void removeAfterCommit(Long id) {
+        afterCommit(() -> index.remove(id));
+    }
+
+    private static void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+
+}
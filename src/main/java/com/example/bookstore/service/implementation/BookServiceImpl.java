@@ -1,30 +1,86 @@
 package com.example.bookstore.service.implementation;
 
 import com.example.bookstore.model.Book;
+import com.example.bookstore.service.cache.BoundedCache;
 import com.example.bookstore.service.dto.BookDTO;
+import com.example.bookstore.service.dto.CacheStatsDTO;
+import com.example.bookstore.service.dto.CursorPageDTO;
+import com.example.bookstore.service.dto.PageDTO;
 import com.example.bookstore.service.mapper.BookMapper;
+import com.example.bookstore.service.patch.FieldPatcher;
+import com.example.bookstore.service.patch.PatchConverters;
 import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.repository.CatalogRevisionRepository;
+import com.example.bookstore.retry.RetryOnConflict;
 import com.example.bookstore.service.BookService;
-import jakarta.transaction.Transactional;
+import jakarta.persistence.CacheRetrieveMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.OptimisticLockException;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.jpa.SpecHints;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.util.ReflectionUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.lang.reflect.Field;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 
 @Service
 @Transactional
 public class BookServiceImpl implements BookService {
+
+    // Properties a page of books may be sorted by, besides the id
+    static final Set<String> SORTABLE = Set.of("title", "author", "price");
+
+    /**
+     * Upper bound on the number of ids sent in a single batched lookup, keeps the IN list
+     * within what the database handles well for very large carts.
+     */
+    static final int LOOKUP_CHUNK_SIZE = 500;
+
+    static final FieldPatcher<Book> BOOK_PATCHER = FieldPatcher.forEntity(Book.class, "id", "version")
+            .field("title", PatchConverters.text(255), Book::setTitle)
+            .field("author", PatchConverters.text(255), Book::setAuthor)
+            .field("price", PatchConverters.nonNegativeDouble(), Book::setPrice)
+            .build();
+
+    // Another instance may have changed the book since it was put in this one's second-level cache, and a patch
+    // based on that copy would only fail its version check
+    private static final Map<String, Object> READ_FROM_DATABASE = Map.of(
+            SpecHints.HINT_SPEC_CACHE_RETRIEVE_MODE, CacheRetrieveMode.BYPASS);
+
     private final BookRepository bookRepository;
+    private final CatalogRevisionRepository catalogRevisionRepository;
+    private final EntityManager entityManager;
+    private final BoundedCache<Long, BookDTO> bookCache;
+    private final BookSearchServiceImpl bookSearchService;
 
     @Autowired
-    public BookServiceImpl(BookRepository bookRepository) {
+    public BookServiceImpl(BookRepository bookRepository, CatalogRevisionRepository catalogRevisionRepository,
+                           EntityManager entityManager, BookSearchServiceImpl bookSearchService,
+                           @Value("${bookstore.cache.books.maximum-size:10000}") int cacheMaximumSize,
+                           @Value("${bookstore.cache.books.time-to-live:10m}") Duration cacheTimeToLive) {
         this.bookRepository = bookRepository;
+        this.catalogRevisionRepository = catalogRevisionRepository;
+        this.entityManager = entityManager;
+        this.bookSearchService = bookSearchService;
+        this.bookCache = new BoundedCache<>(cacheMaximumSize, cacheTimeToLive);
     }
 
     /**
@@ -34,7 +90,10 @@ public class BookServiceImpl implements BookService {
      */
     @Override
     public BookDTO saveBook(BookDTO bookDto){
-        return BookMapper.toBookDTO(bookRepository.save(BookMapper.toBookEntity(bookDto)));
+        BookDTO savedBook = BookMapper.toBookDTO(bookRepository.save(BookMapper.toBookEntity(bookDto)));
+        invalidateCachedBook(savedBook.getId());
+        bookSearchService.indexAfterCommit(savedBook);
+        return savedBook;
     }
 
     /**
@@ -42,6 +101,7 @@ public class BookServiceImpl implements BookService {
      * @return A list of all books
      */
     @Override
+    @Transactional(readOnly = true)
     public List<BookDTO> getAllBooks(){
 
         return bookRepository.findAll()
@@ -51,14 +111,161 @@ public class BookServiceImpl implements BookService {
     }
 
     /**
-     * Retrieves a book by id
+     * Retrieves one page of books, ordered by the requested sort and then by id
+     * @param pageable Page number, size and sort
+     * @return The requested page of books
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public PageDTO<BookDTO> getBooks(Pageable pageable) {
+        return Paging.toPageDTO(bookRepository.findAll(Paging.stable(pageable, "id", SORTABLE)), BookMapper::toBookDTO);
+    }
+
+    /**
+     * Retrieves the books that follow a cursor, ordered by id.
+     * Each page is an index range scan, so deep pages cost the same as the first one
+     * @param after Id of the last book of the previous page, or null for the first page
+     * @param size Page size
+     * @return The page of books and the cursor of the next page
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDTO<BookDTO> getBooksAfter(Long after, int size) {
+        return Paging.toCursorPageDTO(
+                bookRepository.findByIdGreaterThanOrderByIdAsc(Paging.after(after), Paging.keysetLimit(size)),
+                size, Book::getId, BookMapper::toBookDTO);
+    }
+
+    /**
+     * Streams every book, in id order, to a sink.
+     * Rows are read with a JDBC fetch size and detached once mapped, so memory use does not grow with the catalog
+     * @param sink Receives each book as soon as it is read
+     * @return Number of exported books
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long exportBooks(Consumer<BookDTO> sink) {
+        long count = 0;
+        try (Stream<Book> books = bookRepository.streamAllOrderById()) {
+            for (Book book : (Iterable<Book>) books::iterator) {
+                sink.accept(BookMapper.toBookDTO(book));
+                entityManager.detach(book);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Retrieves a book by id.
+     * Read from the primary, not the replica: the book is cached, and a row from a lagging replica would be served
+     * for the whole time to live of the cache
      * @param id Book id
      * @return An Optional containing the book if found, or empty if not found
      */
     @Override
+    @Transactional
     public Optional<BookDTO> getBookById(Long id){
+        BookDTO cached = bookCache.get(id);
+        if (cached != null) {
+            return Optional.of(copyOf(cached));
+        }
+
         return bookRepository.findById(id)
-                .map(BookMapper::toBookDTO);
+                .map(BookMapper::toBookDTO)
+                .map(book -> {
+                    bookCache.put(id, book);
+                    return copyOf(book);
+                });
+    }
+
+    /**
+     * Current version of a book. Cached books are answered from memory, the others with a query on the version alone.
+     * Read from the primary, since the version is compared with the ETag a client sends
+     * @param id Book id
+     * @return The version of the book, or empty if there is no such book
+     */
+    @Override
+    @Transactional
+    public Optional<Long> getBookVersion(Long id) {
+        BookDTO cached = bookCache.get(id);
+        if (cached != null) {
+            return Optional.of(cached.getVersion());
+        }
+        return bookRepository.findVersionById(id);
+    }
+
+    /**
+     * Revision of the whole catalog, which every transaction that adds, updates or deletes books moves forward.
+     * Read from the primary and never cached, so that writes made through another instance are seen at once
+     * @return The catalog version
+     */
+    @Override
+    @Transactional
+    public String getCatalogVersion() {
+        return String.valueOf(catalogRevisionRepository.findCatalogRevision().orElse(0L));
+    }
+
+    /**
+     * Looks up the unit price of many books at once
+     * @param ids Book ids
+     * @return Unit price by book id
+     * @see #findBooks(Collection)
+     */
+    Map<Long, Double> findPrices(Collection<Long> ids) {
+        Map<Long, Double> prices = new HashMap<>(ids.size() * 2);
+        findBooks(ids).forEach((id, book) -> prices.put(id, book.getPrice()));
+        return prices;
+    }
+
+    /**
+     * Looks up many books at once.
+     * Cached books are answered from memory, the rest are loaded with one query per {@link #LOOKUP_CHUNK_SIZE} ids
+     * and added to the cache. Ids of books that do not exist are left out of the result.
+     * Called from a read-only transaction, the books may come from a lagging replica, so they are then kept out of
+     * the book cache and the second-level cache.
+     * The returned books are the cached instances and must not be modified
+     * @param ids Book ids
+     * @return Book by id
+     */
+    Map<Long, BookDTO> findBooks(Collection<Long> ids) {
+        Map<Long, BookDTO> books = new HashMap<>(ids.size() * 2);
+        List<Long> missing = new ArrayList<>();
+
+        for (Long id : ids) {
+            BookDTO cached = bookCache.get(id);
+            if (cached != null) {
+                books.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+
+        boolean fromReplica = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        if (fromReplica && !missing.isEmpty()) {
+            entityManager.unwrap(Session.class).setCacheMode(CacheMode.GET);
+        }
+        for (int from = 0; from < missing.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<Long> chunk = missing.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, missing.size()));
+            for (Book book : bookRepository.findAllById(chunk)) {
+                BookDTO loaded = BookMapper.toBookDTO(book);
+                if (!fromReplica) {
+                    bookCache.put(book.getId(), loaded);
+                }
+                books.put(book.getId(), loaded);
+            }
+        }
+
+        return books;
+    }
+
+    /**
+     * Hit, miss and eviction counts of the book cache
+     * @return Current cache statistics
+     */
+    @Override
+    public CacheStatsDTO getCacheStats() {
+        return bookCache.stats();
     }
 
     /**
@@ -70,30 +277,86 @@ public class BookServiceImpl implements BookService {
     public void deleteBook(Long id){
         if (bookRepository.existsById(id)) {
             bookRepository.deleteById(id);
+            invalidateCachedBook(id);
+            bookSearchService.removeAfterCommit(id);
         } else {
             throw new RuntimeException("Book not found with id: " + id);
         }
     }
 
+    /**
+     * Updates some fields of a book. Only the patched columns are written, and the version is checked and bumped
+     * in the same UPDATE, so a concurrent update of the book makes this one run again.
+     * Values are converted and validated before anything is read: numbers may be sent as any JSON number,
+     * and unknown or read-only fields are rejected
+     * @param id Book id
+     * @param fields New values by field name
+     * @return The updated book
+     */
+    @Override
+    @RetryOnConflict
     public BookDTO updateBookByFields(Long id, Map<String, Object> fields) {
-        Optional<Book> existingBook = bookRepository.findById(id);
+        return updateBookByFields(id, fields, null);
+    }
 
-        if (existingBook.isEmpty() ) {
-            throw new RuntimeException("Book not found");
+    /**
+     * Same as {@link #updateBookByFields(Long, Map)}, but only while the book still has the version the client
+     * read, so that a concurrent update is not overwritten
+     * @param id Book id
+     * @param fields New values by field name
+     * @param expectedVersion Version the book must have, null to update it whatever its version
+     * @return The updated book
+     * @throws ObjectOptimisticLockingFailureException When the book has another version, or gets one before the update
+     */
+    @Override
+    public BookDTO updateBookByFields(Long id, Map<String, Object> fields, Long expectedVersion) {
+        FieldPatcher.Patch<Book> patch = BOOK_PATCHER.compile(fields);
+
+        Book book = Optional.ofNullable(entityManager.find(Book.class, id, READ_FROM_DATABASE))
+                .orElseThrow(() -> new RuntimeException("Book not found"));
+        if (expectedVersion != null && book.getVersion() != expectedVersion) {
+            throw new ObjectOptimisticLockingFailureException(Book.class, id);
+        }
+        patch.applyTo(book);
+        try {
+            // Writes now, so that the returned book carries its new version
+            entityManager.flush();
+        } catch (OptimisticLockException ex) {
+            // The shared EntityManager does not translate exceptions, and the retry only recognises Spring's conflicts
+            throw new ObjectOptimisticLockingFailureException(Book.class, id, ex);
         }
 
-        Book book = existingBook.get();
+        invalidateCachedBook(id);
+        BookDTO updatedBook = BookMapper.toBookDTO(book);
+        bookSearchService.indexAfterCommit(updatedBook);
+        return updatedBook;
+    }
 
-        fields.forEach((key, value) -> {
-            Field field = ReflectionUtils.findField(Book.class, key);
-            if (field != null) {
-                field.setAccessible(true);
-                ReflectionUtils.setField(field, book, value);
-            }
-        });
+    /**
+     * Drops a book from the cache now and again once the surrounding transaction commits,
+     * so a concurrent reader cannot put the old row back in between
+     * @param id Book id
+     */
+    private void invalidateCachedBook(Long id) {
+        bookCache.invalidate(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    bookCache.invalidate(id);
+                }
+            });
+        }
+    }
 
-        Book savedBook = bookRepository.save(book);
-        return BookMapper.toBookDTO(savedBook);
+    private static BookDTO copyOf(BookDTO book) {
+        return BookDTO.builder()
+                .id(book.getId())
+                .title(book.getTitle())
+                .author(book.getAuthor())
+                .price(book.getPrice())
+                .version(book.getVersion())
+                .build();
     }
 
 }
@@ -1,8 +1,13 @@
 package com.example.bookstore.service.implementation;
 
+import com.example.bookstore.service.dto.BookDTO;
 import com.example.bookstore.service.dto.CartDTO;
+import com.example.bookstore.service.dto.CartOperationDTO;
+import com.example.bookstore.service.dto.CartPricingDTO;
+import com.example.bookstore.service.dto.CursorPageDTO;
+import com.example.bookstore.service.dto.ItemMap;
+import com.example.bookstore.service.dto.PageDTO;
 import com.example.bookstore.service.mapper.CartMapper;
-import com.example.bookstore.model.Book;
 import com.example.bookstore.model.Cart;
 import com.example.bookstore.model.User;
 import com.example.bookstore.repository.BookRepository;
@@ -10,28 +15,44 @@ import com.example.bookstore.repository.CartRepository;
 import com.example.bookstore.repository.UserRepository;
 import com.example.bookstore.service.CartService;
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class CartServiceImpl implements CartService {
+
+    // Properties a page of carts may be sorted by, besides the id
+    static final Set<String> SORTABLE = Set.of();
+
+    /**
+     * Largest number of operations accepted by {@link #applyOperations}, which keeps one request's transaction short
+     */
+    static final int MAX_OPERATIONS = 500;
+
     private final CartRepository cartRepository;
     private final BookRepository bookRepository;
     private final UserRepository userRepository;
+    private final BookServiceImpl bookService;
 
     @Autowired
-    public CartServiceImpl(CartRepository cartRepository, BookRepository bookRepository, UserRepository userRepository) {
+    public CartServiceImpl(CartRepository cartRepository, BookRepository bookRepository, UserRepository userRepository,
+                           BookServiceImpl bookService) {
         this.cartRepository = cartRepository;
         this.bookRepository = bookRepository;
         this.userRepository = userRepository;
+        this.bookService = bookService;
     }
 
     /**
@@ -47,7 +68,10 @@ public class CartServiceImpl implements CartService {
     }
 
     /**
-     * Add a book to an existing cart
+     * Add a book to an existing cart.
+     * The line is upserted with a single statement, so concurrent adds to the same cart never lose an update
+     * and the cost does not depend on the size of the cart. The cart version is bumped first, which also
+     * checks that the cart exists
      * @param cartId Cart id
      * @param bookId Book id to add
      * @param quantity Number of copies of the book
@@ -58,12 +82,12 @@ public class CartServiceImpl implements CartService {
 
         validateQuantity(quantity);
 
-        Cart cart = findCartById(cartId);
-        Book book = findBookById(bookId);
+        touchCart(cartId);
+        findBookById(bookId);
 
-        updateCartWithBook(cart, bookId, quantity);
+        cartRepository.addQuantity(cartId, bookId, quantity);
 
-        return CartMapper.toCartDTO(cartRepository.save(cart));
+        return CartMapper.toCartDTO(findCartById(cartId));
     }
 
     private void validateQuantity(int quantity) {
@@ -73,52 +97,138 @@ public class CartServiceImpl implements CartService {
     }
 
     private Cart findCartById(Long cartId) {
-        return cartRepository.findById(cartId)
+        return cartRepository.findWithBooksById(cartId)
                 .orElseThrow(() -> new RuntimeException("Cart not found with id: " + cartId));
     }
 
-    private Book findBookById(Long bookId) {
-        return bookRepository.findById(bookId)
-                .orElseThrow(() -> new RuntimeException("Book not found with id: " + bookId));
+    private void touchCart(Long cartId) {
+        touchCart(cartId, null);
     }
 
-    private void updateCartWithBook(Cart cart, Long bookId, int quantity) {
-        Map<Long, Integer> books = cart.getBooks();
-
-        if (books == null) {
-            books = new HashMap<>();
-            cart.setBooks(books);
+    private void touchCart(Long cartId, Long expectedVersion) {
+        int updated = expectedVersion == null
+                ? cartRepository.incrementVersion(cartId)
+                : cartRepository.incrementVersionIfCurrent(cartId, expectedVersion);
+        if (updated == 0) {
+            if (expectedVersion != null && cartRepository.existsById(cartId)) {
+                throw new ObjectOptimisticLockingFailureException(Cart.class, cartId);
+            }
+            throw new RuntimeException("Cart not found with id: " + cartId);
         }
+    }
 
-        books.put(bookId, books.getOrDefault(bookId, 0) + quantity);
+    private BookDTO findBookById(Long bookId) {
+        return bookService.getBookById(bookId)
+                .orElseThrow(() -> new RuntimeException("Book not found with id: " + bookId));
     }
 
     /**
-     * remove books from cart
+     * remove books from cart, deleting the single line without loading the cart
      * @param cartId The id of the cart
      * @param bookId The id of the book to remove
      */
     @Override
     public void removeBook(Long cartId, Long bookId) {
-        Optional<Cart> cartOptional = cartRepository.findById(cartId);
-
-        if (cartOptional.isEmpty() ) {
+        if (cartRepository.incrementVersion(cartId) == 0) {
             throw new RuntimeException("Cart not found");
         }
 
-        Cart cart = cartOptional.get();
+        if (cartRepository.removeLine(cartId, bookId) == 0) {
+            throw new RuntimeException("Book not found in the cart");
+        }
+    }
 
-        Map<Long, Integer> books = cart.getBooks();
+    /**
+     * Apply many line changes to a cart in one transaction.
+     * Every book that is added or set is checked with one batched lookup, the cart is locked by bumping its version,
+     * and the changed lines are written in a single flush. If any operation is invalid nothing is changed
+     * @param cartId Cart id
+     * @param operations Changes to apply, in order
+     * @return The cart after every change
+     */
+    @Override
+    public CartDTO applyOperations(Long cartId, List<CartOperationDTO> operations) {
+        return applyOperations(cartId, operations, null);
+    }
 
-        if(books == null || !books.containsKey(bookId)) {
-            throw new RuntimeException("Book not found in the cart");
+    /**
+     * Same as {@link #applyOperations(Long, List)}, but only while the cart still has the version the client read,
+     * so that changes made by another client in between are not overwritten
+     * @param cartId Cart id
+     * @param operations Changes to apply, in order
+     * @param expectedVersion Version the cart must have, null to change it whatever its version
+     * @return The cart after every change
+     * @throws ObjectOptimisticLockingFailureException When the cart has another version
+     */
+    @Override
+    public CartDTO applyOperations(Long cartId, List<CartOperationDTO> operations, Long expectedVersion) {
+        if (operations == null || operations.isEmpty()) {
+            throw new IllegalArgumentException("At least one operation is required");
+        }
+        if (operations.size() > MAX_OPERATIONS) {
+            throw new IllegalArgumentException("At most " + MAX_OPERATIONS + " operations are allowed");
+        }
+
+        Set<Long> bookIds = new HashSet<>();
+        for (CartOperationDTO operation : operations) {
+            validateOperation(operation);
+            if (operation.getOp() != CartOperationDTO.Type.REMOVE && operation.getQuantity() > 0) {
+                bookIds.add(operation.getBookId());
+            }
         }
 
-        books.remove(bookId);
+        Set<Long> missing = new HashSet<>(bookIds);
+        missing.removeAll(bookService.findBooks(bookIds).keySet());
+        if (!missing.isEmpty()) {
+            throw new RuntimeException("Books not found with ids: " + missing);
+        }
 
-        cart.setBooks(books);
-        cartRepository.save(cart);
+        touchCart(cartId, expectedVersion);
+        Cart cart = findCartById(cartId);
 
+        Map<Long, Integer> books = cart.getBooks();
+        for (CartOperationDTO operation : operations) {
+            Long bookId = operation.getBookId();
+            switch (operation.getOp()) {
+                case ADD -> books.merge(bookId, operation.getQuantity(), Integer::sum);
+                case SET -> {
+                    if (operation.getQuantity() == 0) {
+                        books.remove(bookId);
+                    } else {
+                        books.put(bookId, operation.getQuantity());
+                    }
+                }
+                case REMOVE -> {
+                    if (books.remove(bookId) == null) {
+                        throw new RuntimeException("Book not found in the cart: " + bookId);
+                    }
+                }
+            }
+        }
+
+        cartRepository.flush();
+        return CartMapper.toCartDTO(cart);
+    }
+
+    private void validateOperation(CartOperationDTO operation) {
+        if (operation == null || operation.getOp() == null || operation.getBookId() == null) {
+            throw new IllegalArgumentException("Every operation needs an op and a bookId");
+        }
+        switch (operation.getOp()) {
+            case ADD -> {
+                if (operation.getQuantity() == null) {
+                    throw new IllegalArgumentException("Quantity must be greater than zero");
+                }
+                validateQuantity(operation.getQuantity());
+            }
+            case SET -> {
+                if (operation.getQuantity() == null || operation.getQuantity() < 0) {
+                    throw new IllegalArgumentException("Quantity must be zero or more");
+                }
+            }
+            case REMOVE -> {
+            }
+        }
     }
 
     /**
@@ -140,24 +250,37 @@ public class CartServiceImpl implements CartService {
      * @return An Optional containing the cart if found
      */
     @Override
+    @Transactional(readOnly = true)
     public Optional<CartDTO> displayCart(Long cartId) {
-        return cartRepository.findById(cartId)
+        return cartRepository.findWithBooksById(cartId)
                 .map(CartMapper::toCartDTO);
 
     }
 
+    /**
+     * Current version of a cart, without loading its lines
+     * @param cartId Cart id
+     * @return The version of the cart, or empty if there is no such cart
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Long> getCartVersion(Long cartId) {
+        return cartRepository.findVersionById(cartId);
+    }
+
     /**
      * View books in the cart
      * @param cartId Cart id
      * @return A map of book IDs and their quantities belongs to the cart
      */
     @Override
-    public Map<Long, Integer> viewBooksInCart(Long cartId) {
-        Optional<Cart> cartOptional = cartRepository.findById(cartId);
+    @Transactional(readOnly = true)
+    public ItemMap viewBooksInCart(Long cartId) {
+        Optional<Cart> cartOptional = cartRepository.findWithBooksById(cartId);
 
         Cart cart = cartOptional.orElseThrow(() -> new RuntimeException("Cart not found"));
 
-        return cart.getBooks() == null ? new HashMap<>() : cart.getBooks();
+        return ItemMap.of(cart.getBooks());
 
     }
 
@@ -167,21 +290,63 @@ public class CartServiceImpl implements CartService {
      * @return Current total price
      */
     @Override
+    @Transactional(readOnly = true)
     public Double calculateTotalPrice(Long cartId) {
+        return priceCart(cartId).getTotal();
+    }
+
+    /**
+     * Price every line of a cart
+     * @param cartId Cart id of the cart to price
+     * @return Unit prices, unpriced book ids and the total of the cart
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CartPricingDTO priceCart(Long cartId) {
         Cart cart = cartRepository.findById(cartId)
                 .orElseThrow(() -> new RuntimeException("Cart not found"));
 
+        return priceCart(cart);
+    }
+
+    /**
+     * Price an already loaded cart. Prices come from the book cache, and the books missing from it
+     * are loaded in one batched query instead of one query per line.
+     * Books that no longer exist are priced at zero and reported as unpriced.
+     * @param cart Cart to price
+     * @return Pricing of the cart
+     */
+    CartPricingDTO priceCart(Cart cart) {
         Map<Long, Integer> books = cart.getBooks();
 
         if (books == null || books.isEmpty()) {
-            return 0.0;
+            return CartPricingDTO.builder()
+                    .cartId(cart.getCartId())
+                    .unitPrices(new HashMap<>())
+                    .unpricedBookIds(new HashSet<>())
+                    .total(0.0)
+                    .build();
         }
 
-        return books.entrySet().stream()
-                .mapToDouble(entry -> bookRepository.findById(entry.getKey())
-                        .map(book -> book.getPrice() * entry.getValue())
-                        .orElse(0.0))
-                .sum();
+        Map<Long, Double> unitPrices = bookService.findPrices(books.keySet());
+
+        Set<Long> unpricedBookIds = new HashSet<>();
+        double total = 0.0;
+        for (Map.Entry<Long, Integer> entry : books.entrySet()) {
+            Double unitPrice = unitPrices.get(entry.getKey());
+            if (unitPrice == null) {
+                unpricedBookIds.add(entry.getKey());
+            } else {
+                total += unitPrice * entry.getValue();
+            }
+        }
+
+        return CartPricingDTO.builder()
+                .cartId(cart.getCartId())
+                .unitPrices(unitPrices)
+                .unpricedBookIds(unpricedBookIds)
+                .total(total)
+                .build();
     }
 
     /**
@@ -189,12 +354,42 @@ public class CartServiceImpl implements CartService {
      * @return A list of all carts
      */
     @Override
+    @Transactional(readOnly = true)
     public List<CartDTO> getAllCarts() {
-        return cartRepository.findAll()
+        return cartRepository.findAllWithBooks()
                 .stream()
                 .map(CartMapper::toCartDTO)
                 .collect(Collectors.toList());
 
     }
 
+    /**
+     * View one page of carts, ordered by the requested sort and then by id
+     * @param pageable Page number, size and sort
+     * @return The requested page of carts
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public PageDTO<CartDTO> getCarts(Pageable pageable) {
+        return Paging.toPageDTO(
+                Paging.fetchPage(cartRepository.findIds(Paging.stable(pageable, "cartId", SORTABLE)),
+                        cartRepository::findAllWithBooksByIdIn, Cart::getCartId),
+                CartMapper::toCartDTO);
+    }
+
+    /**
+     * View the carts that follow a cursor, ordered by id
+     * @param after Id of the last cart of the previous page, or null for the first page
+     * @param size Page size
+     * @return The page of carts and the cursor of the next page
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDTO<CartDTO> getCartsAfter(Long after, int size) {
+        return Paging.toCursorPageDTO(
+                Paging.fetchInOrder(cartRepository.findIdsAfter(Paging.after(after), Paging.keysetLimit(size)),
+                        cartRepository::findAllWithBooksByIdIn, Cart::getCartId),
+                size, Cart::getCartId, CartMapper::toCartDTO);
+    }
+
 }
@@ -0,0 +1,99 @@
+package com.example.bookstore.service.implementation;
+
+import com.example.bookstore.model.CheckoutRequest;
+import com.example.bookstore.model.CheckoutStatus;
+import com.example.bookstore.repository.CartRepository;
+import com.example.bookstore.repository.CheckoutRequestRepository;
+import com.example.bookstore.service.CheckoutService;
+import com.example.bookstore.service.dto.CheckoutStatusDTO;
+import com.example.bookstore.service.mapper.CheckoutMapper;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Asynchronous checkout. A request only records an outbox row; pricing, the order insert
+ * and the cart delete are done later by the {@link CheckoutWorker}
+ */
+@Service
+public class CheckoutServiceImpl implements CheckoutService {
+
+    private final CheckoutRequestRepository checkoutRequestRepository;
+    private final CartRepository cartRepository;
+    private final CheckoutWorker checkoutWorker;
+
+    public CheckoutServiceImpl(CheckoutRequestRepository checkoutRequestRepository, CartRepository cartRepository,
+                               CheckoutWorker checkoutWorker) {
+        this.checkoutRequestRepository = checkoutRequestRepository;
+        this.cartRepository = cartRepository;
+        this.checkoutWorker = checkoutWorker;
+    }
+
+    /**
+     * Queue the checkout of a cart. The cart is the idempotency key: submitting a cart that is
+     * already queued or checked out returns that request, and a failed request is queued again
+     * @param userId User id
+     * @param cartId Cart id
+     * @return Status of the queued request
+     */
+    @Override
+    public CheckoutStatusDTO submitCheckout(Long userId, Long cartId) {
+
+        Optional<CheckoutRequest> existing = checkoutRequestRepository.findByCartId(cartId);
+        if (existing.isPresent()) {
+            return CheckoutMapper.toCheckoutStatusDTO(resubmitIfFailed(requireOwner(existing.get(), userId)));
+        }
+
+        if (!cartRepository.existsByCartIdAndUserId(cartId, userId)) {
+            throw new RuntimeException("Cart not found for the user with id: " + userId);
+        }
+
+        CheckoutRequest request;
+        try {
+            request = checkoutRequestRepository.save(CheckoutRequest.builder()
+                    .userId(userId)
+                    .cartId(cartId)
+                    .status(CheckoutStatus.PENDING)
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            // Another request queued the same cart first
+            request = checkoutRequestRepository.findByCartId(cartId).orElseThrow(() -> e);
+        }
+
+        checkoutWorker.wakeUp();
+        return CheckoutMapper.toCheckoutStatusDTO(request);
+    }
+
+    /**
+     * Get the status of a checkout request of a user
+     * @param userId User id
+     * @param requestId Checkout request id
+     * @return Status of the request, empty when the user has no such request
+     */
+    @Override
+    public Optional<CheckoutStatusDTO> getCheckoutStatus(Long userId, Long requestId) {
+        return checkoutRequestRepository.findByIdAndUserId(requestId, userId)
+                .map(CheckoutMapper::toCheckoutStatusDTO);
+    }
+
+    private CheckoutRequest requireOwner(CheckoutRequest request, Long userId) {
+        if (!request.getUserId().equals(userId)) {
+            throw new RuntimeException("Cart not found for the user with id: " + userId);
+        }
+        return request;
+    }
+
+    private CheckoutRequest resubmitIfFailed(CheckoutRequest request) {
+        if (request.getStatus() != CheckoutStatus.FAILED) {
+            return request;
+        }
+        if (checkoutRequestRepository.resubmit(request.getId()) == 1) {
+            checkoutWorker.wakeUp();
+        }
+        return checkoutRequestRepository.findByCartId(request.getCartId()).orElseThrow();
+    }
+
+}
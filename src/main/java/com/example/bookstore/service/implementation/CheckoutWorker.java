@@ -0,0 +1,161 @@
+package com.example.bookstore.service.implementation;
+
+import com.example.bookstore.model.CheckoutRequest;
+import com.example.bookstore.model.CheckoutStatus;
+import com.example.bookstore.model.Order;
+import com.example.bookstore.repository.CheckoutRequestRepository;
+import com.example.bookstore.retry.ConflictRetryPolicy;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Drains the checkout outbox. A single dispatcher claims pending requests in batches, never more
+ * than the worker pool has room for, and each worker converts one cart to an order and completes
+ * its request in one transaction, run again by the {@link ConflictRetryPolicy} when it loses a concurrent update.
+ * Workers are virtual threads when spring.threads.virtual.enabled is set; the pool size still bounds how many
+ * checkouts run at once
+ */
+@Slf4j
+@Component
+public class CheckoutWorker {
+
+    private final CheckoutRequestRepository checkoutRequestRepository;
+    private final OrderServiceImpl orderService;
+    private final ConflictRetryPolicy retryPolicy;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final Duration claimTimeout;
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService dispatcher;
+    private final AtomicBoolean dispatchQueued = new AtomicBoolean();
+
+    public CheckoutWorker(CheckoutRequestRepository checkoutRequestRepository, OrderServiceImpl orderService,
+                          ConflictRetryPolicy retryPolicy, PlatformTransactionManager transactionManager,
+                          @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                          @Value("${bookstore.checkout.workers:4}") int workerCount,
+                          @Value("${bookstore.checkout.batch-size:50}") int batchSize,
+                          @Value("${bookstore.checkout.poll-interval:1s}") Duration pollInterval,
+                          @Value("${bookstore.checkout.claim-timeout:5m}") Duration claimTimeout) {
+        if (workerCount <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Checkout workers and batch size must be greater than zero");
+        }
+        this.checkoutRequestRepository = checkoutRequestRepository;
+        this.orderService = orderService;
+        this.retryPolicy = retryPolicy;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.claimTimeout = claimTimeout;
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(batchSize), virtualThreads
+                        ? Thread.ofVirtual().name("checkout-worker-", 0).factory()
+                        : Thread.ofPlatform().name("checkout-worker-", 0).factory());
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(virtualThreads
+                ? Thread.ofVirtual().name("checkout-dispatcher").factory()
+                : Thread.ofPlatform().name("checkout-dispatcher").daemon().factory());
+    }
+
+    /**
+     * Start polling the outbox once the application is ready. A zero poll interval
+     * leaves only the dispatch triggered by {@link #wakeUp()}
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!pollInterval.isZero()) {
+            dispatcher.scheduleWithFixedDelay(this::dispatchSafely, pollInterval.toMillis(), pollInterval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Dispatch pending requests now instead of at the next poll
+     */
+    public void wakeUp() {
+        if (dispatchQueued.compareAndSet(false, true)) {
+            dispatcher.execute(() -> {
+                dispatchQueued.set(false);
+                dispatchSafely();
+            });
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        dispatcher.shutdownNow();
+        workers.shutdown();
+        if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("stop() - Checkout workers did not finish, claimed requests are released after {}", claimTimeout);
+            workers.shutdownNow();
+        }
+    }
+
+    private void dispatchSafely() {
+        try {
+            dispatch();
+        } catch (RuntimeException e) {
+            log.error("dispatch() - Failed to dispatch checkout requests", e);
+        }
+    }
+
+    private void dispatch() {
+        checkoutRequestRepository.releaseStale(LocalDateTime.now().minus(claimTimeout));
+
+        int room;
+        while ((room = Math.min(batchSize, workers.getQueue().remainingCapacity())) > 0) {
+            List<Long> ids = checkoutRequestRepository.findPendingIds(Limit.of(room));
+            for (Long id : ids) {
+                if (checkoutRequestRepository.claim(id, LocalDateTime.now()) == 1) {
+                    workers.execute(() -> process(id));
+                }
+            }
+            if (ids.size() < room) {
+                return;
+            }
+        }
+    }
+
+    private void process(Long id) {
+        try {
+            retryPolicy.execute("CheckoutWorker.process", () -> transactionTemplate.execute(status -> {
+                CheckoutRequest request = checkoutRequestRepository.findById(id).orElseThrow();
+                if (request.getStatus() != CheckoutStatus.PROCESSING) {
+                    return null;
+                }
+                Order order = orderService.convertCartToOrder(request.getUserId(), request.getCartId()).orElseThrow();
+                request.setOrderId(order.getOrderId());
+                request.setStatus(CheckoutStatus.COMPLETED);
+                request.setCompletedAt(LocalDateTime.now());
+                return order;
+            }));
+        } catch (RuntimeException e) {
+            log.warn("process() - Checkout request {} failed: {}", id, e.getMessage());
+            checkoutRequestRepository.fail(id, abbreviate(e.getMessage()), LocalDateTime.now());
+        }
+    }
+
+    private static String abbreviate(String message) {
+        if (message == null) {
+            return "Checkout failed";
+        }
+        return message.length() <= 500 ? message : message.substring(0, 500);
+    }
+
+}
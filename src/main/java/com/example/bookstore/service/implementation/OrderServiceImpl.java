@@ -1,34 +1,58 @@
 package com.example.bookstore.service.implementation;
 
+import com.example.bookstore.service.dto.BookDTO;
+import com.example.bookstore.service.dto.CursorPageDTO;
 import com.example.bookstore.service.dto.OrderDTO;
+import com.example.bookstore.service.dto.OrderDetailDTO;
+import com.example.bookstore.service.dto.PageDTO;
+import com.example.bookstore.service.dto.SliceDTO;
 import com.example.bookstore.service.mapper.OrderMapper;
 import com.example.bookstore.model.Cart;
 import com.example.bookstore.model.Order;
+import com.example.bookstore.model.OrderLine;
 import com.example.bookstore.repository.CartRepository;
 import com.example.bookstore.repository.OrderRepository;
 import com.example.bookstore.service.OrderService;
-import jakarta.transaction.Transactional;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class OrderServiceImpl implements OrderService {
 
+    // Properties a page of orders may be sorted by, besides the id
+    static final Set<String> SORTABLE = Set.of("orderDate", "total");
+
     private final OrderRepository orderRepository;
     private final CartRepository cartRepository;
-    private final CartServiceImpl cartService;
+    private final BookServiceImpl bookService;
+    private final SalesReportServiceImpl salesReportService;
+    private final EntityManager entityManager;
 
-    public OrderServiceImpl(OrderRepository orderRepository, CartRepository cartRepository, CartServiceImpl cartService) {
+    public OrderServiceImpl(OrderRepository orderRepository, CartRepository cartRepository, BookServiceImpl bookService,
+                            SalesReportServiceImpl salesReportService, EntityManager entityManager) {
         this.orderRepository = orderRepository;
         this.cartRepository = cartRepository;
-        this.cartService = cartService;
+        this.bookService = bookService;
+        this.salesReportService = salesReportService;
+        this.entityManager = entityManager;
     }
 
     /**
@@ -36,20 +60,73 @@ public class OrderServiceImpl implements OrderService {
      * @return List of Orders
      */
     @Override
+    @Transactional(readOnly = true)
     public List<OrderDTO> allOrders() {
 
-        return orderRepository.findAll().stream()
+        return orderRepository.findAllWithBooks().stream()
                 .map(OrderMapper::toOrderDTO)
                 .collect(Collectors.toList());
 
     }
 
+    /**
+     * Get one page of orders, ordered by the requested sort and then by id
+     * @param pageable Page number, size and sort
+     * @return The requested page of orders
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public PageDTO<OrderDTO> getOrders(Pageable pageable) {
+        return Paging.toPageDTO(
+                Paging.fetchPage(orderRepository.findIds(Paging.stable(pageable, "orderId", SORTABLE)),
+                        orderRepository::findAllWithBooksByIdIn, Order::getOrderId),
+                OrderMapper::toOrderDTO);
+    }
+
+    /**
+     * Get the orders that follow a cursor, ordered by id
+     * @param after Id of the last order of the previous page, or null for the first page
+     * @param size Page size
+     * @return The page of orders and the cursor of the next page
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDTO<OrderDTO> getOrdersAfter(Long after, int size) {
+        return Paging.toCursorPageDTO(
+                Paging.fetchInOrder(orderRepository.findIdsAfter(Paging.after(after), Paging.keysetLimit(size)),
+                        orderRepository::findAllWithBooksByIdIn, Order::getOrderId),
+                size, Order::getOrderId, OrderMapper::toOrderDTO);
+    }
+
+    /**
+     * Stream every order, in id order, to a sink.
+     * Orders are read with their books in the same query and detached once mapped,
+     * so memory use does not grow with the order history
+     * @param sink Receives each order as soon as it is read
+     * @return Number of exported orders
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long exportOrders(Consumer<OrderDTO> sink) {
+        long count = 0;
+        try (Stream<Order> orders = orderRepository.streamAllOrderById()) {
+            for (Order order : (Iterable<Order>) orders::iterator) {
+                sink.accept(OrderMapper.toOrderDTO(order));
+                entityManager.detach(order);
+                entityManager.detach(order.getUser());
+                count++;
+            }
+        }
+        return count;
+    }
+
     /**
      * Get all orders for a particular date
      * @param date Date to filter the orders
      * @return List of orders for the particular date
      */
     @Override
+    @Transactional(readOnly = true)
     public List<OrderDTO> filterOrdersByDate(LocalDate date) {
 
         LocalDateTime startOfDay = date.atStartOfDay();
@@ -60,23 +137,76 @@ public class OrderServiceImpl implements OrderService {
 
     }
 
+    /**
+     * Get one page of orders of a user, of a date range, or of a user within a date range,
+     * newest first. Every combination runs on a composite index of orders, and pages are slices
+     * without a count query, so latency does not grow with the size of the orders table
+     * @param userId User id, or null for orders of every user
+     * @param from First day of the range, or null for no lower bound
+     * @param to Last day of the range, inclusive, or null for no upper bound
+     * @param page Page number
+     * @param size Page size
+     * @return One page of matching orders
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public SliceDTO<OrderDTO> findOrders(Long userId, LocalDate from, LocalDate to, int page, int size) {
+        if (userId == null && from == null && to == null) {
+            throw new IllegalArgumentException("A user id or a date range is required");
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("Start date must not be after end date");
+        }
+
+        Pageable pageable = Paging.of(page, size, Sort.by(Sort.Order.desc("orderDate"), Sort.Order.desc("orderId")));
+        Slice<Long> ids;
+        if (from == null && to == null) {
+            ids = orderRepository.findIdsByUserId(userId, pageable);
+        } else {
+            LocalDateTime start = from == null ? LocalDateTime.of(1970, 1, 1, 0, 0) : from.atStartOfDay();
+            LocalDateTime end = to == null ? LocalDateTime.of(9999, 12, 31, 23, 59) : to.atTime(LocalTime.MAX);
+            ids = userId == null
+                    ? orderRepository.findIdsByOrderDateBetween(start, end, pageable)
+                    : orderRepository.findIdsByUserIdAndOrderDateBetween(userId, start, end, pageable);
+        }
+
+        return Paging.toSliceDTO(
+                Paging.fetchSlice(ids, orderRepository::findAllWithBooksByIdIn, Order::getOrderId),
+                OrderMapper::toOrderDTO);
+    }
+
     /**
      * Get an order by id
      * @param orderId id of the order
      * @return order of the particular id
      */
     @Override
+    @Transactional(readOnly = true)
     public Optional<OrderDTO> getOrderById(Long orderId) {
 
         return orderRepository.findById(orderId)
                 .map(OrderMapper::toOrderDTO);
     }
 
+    /**
+     * Get an order with its lines, priced as they were when the order was placed
+     * @param orderId id of the order
+     * @return order of the particular id with its lines
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<OrderDetailDTO> getOrderDetail(Long orderId) {
+
+        return orderRepository.findWithBooksByOrderId(orderId)
+                .map(OrderMapper::toOrderDetailDTO);
+    }
+
     /**
      * Get total bill
      * @param orderId id of the order to check the total bill
      * @return total value of the bill
      */
+    @Transactional(readOnly = true)
     public Double totalBill(Long orderId) {
 
         Order order = orderRepository.findById(orderId)
@@ -86,21 +216,26 @@ public class OrderServiceImpl implements OrderService {
     }
 
     /**
-     * Cancel an order
+     * Cancel an order and take it out of the daily sales
      * @param orderId Order id to cancel
      */
     @Override
     public void cancelOrder(Long orderId) {
 
-        if (orderRepository.existsById(orderId)) {
-            orderRepository.deleteById(orderId);
-        } else {
-            throw new RuntimeException("Book not found with id: " + orderId);
-        }
+        Order order = orderRepository.findWithBooksByOrderId(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
+
+        orderRepository.delete(order);
+        orderRepository.flush();
+        salesReportService.reverseOrder(order);
     }
 
     /**
-     * Convert a cart to an order
+     * Convert a cart to an order.
+     * The cart and its lines are read with one query and the prices with one more. Ownership is checked on the
+     * owner id, so the user is never loaded. The cart is deleted with a single bulk statement that also fails if
+     * the cart changed since it was read. The daily sales are updated last, so that their row of the day, which every
+     * checkout updates, is only locked until the commit that follows
      * @param userId User id
      * @param cartId Cart id
      * @return Order of the user
@@ -108,30 +243,49 @@ public class OrderServiceImpl implements OrderService {
     @Override
     public Optional<Order> convertCartToOrder(Long userId, Long cartId) {
 
-        Optional<Cart> cartOptional = cartRepository.findById(cartId);
-        if (cartOptional.isEmpty()) {
-            throw new RuntimeException("Cart not found for user with id: " + userId);
-        }
-
-        Cart cart = cartOptional.get();
+        Cart cart = cartRepository.findWithBooksById(cartId)
+                .filter(found -> found.getUser().getId().equals(userId))
+                .orElseThrow(() -> new RuntimeException("Cart not found for the user with id: " + userId));
 
-        double totalPrice = cartService.calculateTotalPrice(cart.getCartId());
+        Order order = createOrder(cart);
 
-        Order order = createOrder(cart, totalPrice);
+        orderRepository.saveAndFlush(order);
 
-        orderRepository.save(order);
+        if (cartRepository.deleteByIdAndVersion(cartId, cart.getVersion()) == 0) {
+            throw new ObjectOptimisticLockingFailureException(Cart.class, cartId);
+        }
 
-        cartRepository.deleteById(cartId);
+        salesReportService.recordOrder(order);
 
         return Optional.of(order);
 
     }
 
-    private Order createOrder(Cart cart, Double totalPrice) {
+    /**
+     * Snapshot the title and current price of every book of a cart into the lines of a new order.
+     * Books that no longer exist keep their quantity but are priced at zero, as in {@link CartServiceImpl#priceCart}
+     * @param cart Cart to convert
+     * @return Order that is not saved yet
+     */
+    private Order createOrder(Cart cart) {
+        Map<Long, BookDTO> catalog = bookService.findBooks(cart.getBooks().keySet());
+
+        Map<Long, OrderLine> lines = new HashMap<>(cart.getBooks().size() * 2);
+        double total = 0.0;
+        for (Map.Entry<Long, Integer> item : cart.getBooks().entrySet()) {
+            BookDTO book = catalog.get(item.getKey());
+            if (book == null) {
+                lines.put(item.getKey(), new OrderLine(item.getValue(), 0.0, null));
+            } else {
+                lines.put(item.getKey(), new OrderLine(item.getValue(), book.getPrice(), book.getTitle()));
+                total += book.getPrice() * item.getValue();
+            }
+        }
+
         Order order = new Order();
         order.setUser(cart.getUser());
-        order.setBooks(cart.getBooks()); // Copy books from cart to order
-        order.setTotal(totalPrice);
+        order.setLines(lines);
+        order.setTotal(total);
         order.setOrderDate(LocalDateTime.now());
 
         return order;
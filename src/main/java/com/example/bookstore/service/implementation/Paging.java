@@ -0,0 +1,153 @@
+package com.example.bookstore.service.implementation;
+
+import com.example.bookstore.service.dto.CursorPageDTO;
+import com.example.bookstore.service.dto.PageDTO;
+import com.example.bookstore.service.dto.SliceDTO;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Shared helpers for the paged and keyset (cursor) listing variants of the services.
+ */
+final class Paging {
+
+    static final int MAX_PAGE_SIZE = 500;
+
+    private Paging() {
+    }
+
+    /**
+     * Appends the id as the last sort key so rows with equal sort values keep a stable order across pages
+     * @param pageable Requested page
+     * @param idProperty Name of the id property of the entity
+     * @param sortable Properties the client may sort by, besides the id
+     * @return Page request with a deterministic order and a bounded size
+     * @throws IllegalArgumentException If the page is sorted by another property
+     */
+    static Pageable stable(Pageable pageable, String idProperty, Set<String> sortable) {
+        Sort sort = pageable.getSort();
+        for (Sort.Order order : sort) {
+            if (!order.getProperty().equals(idProperty) && !sortable.contains(order.getProperty())) {
+                throw new IllegalArgumentException("Cannot sort by " + order.getProperty() + ", sortable properties are "
+                        + idProperty + " and " + String.join(", ", new TreeSet<>(sortable)));
+            }
+        }
+        if (sort.getOrderFor(idProperty) == null) {
+            sort = sort.and(Sort.by(idProperty));
+        }
+        return PageRequest.of(pageable.getPageNumber(), clampSize(pageable.getPageSize()), sort);
+    }
+
+    /**
+     * Page request with a fixed sort, typically one that matches the index the query runs on
+     * @param page Page number
+     * @param size Requested page size
+     * @param sort Sort of the rows
+     * @return Page request with a bounded size
+     */
+    static Pageable of(int page, int size, Sort sort) {
+        if (page < 0) {
+            throw new IllegalArgumentException("Page number must not be negative");
+        }
+        return PageRequest.of(page, clampSize(size), sort);
+    }
+
+    /**
+     * Keyset pages fetch one extra row to find out whether a next page exists
+     * @param size Requested page size
+     * @return Limit to pass to the repository
+     */
+    static Limit keysetLimit(int size) {
+        return Limit.of(clampSize(size) + 1);
+    }
+
+    /**
+     * Cursor value to start from, ids are always positive
+     * @param after Last id of the previous page, or null for the first page
+     * @return Id to search after
+     */
+    static long after(Long after) {
+        return after == null ? 0L : after;
+    }
+
+    /**
+     * Loads the rows of a page of ids with a single query and puts them back in the order of the ids.
+     * Paging over ids first lets the loader fetch-join collections without paging in memory
+     * @param ids Page of ids
+     * @param loader Loads the rows for a list of ids
+     * @param id Id of a row
+     * @return Page of rows
+     */
+    static <E> Page<E> fetchPage(Page<Long> ids, Function<List<Long>, List<E>> loader, Function<E, Long> id) {
+        return new PageImpl<>(fetchInOrder(ids.getContent(), loader, id), ids.getPageable(), ids.getTotalElements());
+    }
+
+    static <E> Slice<E> fetchSlice(Slice<Long> ids, Function<List<Long>, List<E>> loader, Function<E, Long> id) {
+        return new SliceImpl<>(fetchInOrder(ids.getContent(), loader, id), ids.getPageable(), ids.hasNext());
+    }
+
+    static <E> List<E> fetchInOrder(List<Long> ids, Function<List<Long>, List<E>> loader, Function<E, Long> id) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, E> rows = loader.apply(ids).stream()
+                .collect(Collectors.toMap(id, Function.identity()));
+        return ids.stream()
+                .map(rows::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    static <E, D> PageDTO<D> toPageDTO(Page<E> page, Function<E, D> mapper) {
+        return PageDTO.<D>builder()
+                .items(page.getContent().stream().map(mapper).toList())
+                .page(page.getNumber())
+                .size(page.getSize())
+                .totalElements(page.getTotalElements())
+                .totalPages(page.getTotalPages())
+                .build();
+    }
+
+    static <E, D> SliceDTO<D> toSliceDTO(Slice<E> slice, Function<E, D> mapper) {
+        return SliceDTO.<D>builder()
+                .items(slice.getContent().stream().map(mapper).toList())
+                .page(slice.getNumber())
+                .size(slice.getSize())
+                .hasNext(slice.hasNext())
+                .build();
+    }
+
+    static <E, D> CursorPageDTO<D> toCursorPageDTO(List<E> rows, int size, Function<E, Long> id, Function<E, D> mapper) {
+        int pageSize = clampSize(size);
+        boolean hasNext = rows.size() > pageSize;
+        List<E> page = hasNext ? rows.subList(0, pageSize) : rows;
+
+        return CursorPageDTO.<D>builder()
+                .items(page.stream().map(mapper).toList())
+                .size(pageSize)
+                .next(hasNext ? id.apply(page.get(page.size() - 1)) : null)
+                .build();
+    }
+
+    private static int clampSize(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Page size must be greater than zero");
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+}
@@ -0,0 +1,200 @@
+package com.example.bookstore.service.implementation;
+
+import com.example.bookstore.model.DailyBookSales;
+import com.example.bookstore.model.DailySales;
+import com.example.bookstore.model.Order;
+import com.example.bookstore.repository.DailyBookSalesRepository;
+import com.example.bookstore.repository.DailySalesRepository;
+import com.example.bookstore.service.SalesReportService;
+import com.example.bookstore.service.dto.DailySalesDTO;
+import com.example.bookstore.service.dto.MonthlySalesDTO;
+import com.example.bookstore.service.dto.SalesRebuildReportDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Daily sales rollups. Checkout and cancellation adjust the rows of the order's day in the
+ * caller's transaction, so reports read one row per day instead of every order of the range.
+ * Every order of a day updates the same daily_sales row and holds its lock until the caller commits, so callers
+ * record orders as the last statements of their transaction
+ */
+@Slf4j
+@Service
+public class SalesReportServiceImpl implements SalesReportService {
+
+    private final DailySalesRepository dailySalesRepository;
+    private final DailyBookSalesRepository dailyBookSalesRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int rebuildChunkDays;
+
+    public SalesReportServiceImpl(DailySalesRepository dailySalesRepository,
+                                  DailyBookSalesRepository dailyBookSalesRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${bookstore.sales.rebuild-chunk-days:31}") int rebuildChunkDays) {
+        if (rebuildChunkDays <= 0) {
+            throw new IllegalArgumentException("Rebuild chunk size must be greater than zero");
+        }
+        this.dailySalesRepository = dailySalesRepository;
+        this.dailyBookSalesRepository = dailyBookSalesRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rebuildChunkDays = rebuildChunkDays;
+    }
+
+    /**
+     * Add a placed order to the rollups of its day
+     * @param order Saved order
+     */
+    @Override
+    @Transactional
+    public void recordOrder(Order order) {
+        apply(order, 1);
+    }
+
+    /**
+     * Take a cancelled order out of the rollups of the day it was placed
+     * @param order Order about to be deleted
+     */
+    @Override
+    @Transactional
+    public void reverseOrder(Order order) {
+        apply(order, -1);
+    }
+
+    private void apply(Order order, int sign) {
+        LocalDate day = order.getOrderDate().toLocalDate();
+        dailySalesRepository.add(day, sign, sign * order.getTotal());
+        // In book id order, so that two orders sharing books lock their rows in the same order and cannot deadlock
+        new TreeMap<>(order.getLines()).forEach((bookId, line) ->
+                dailyBookSalesRepository.add(day, bookId, (long) sign * line.getQuantity()));
+    }
+
+    /**
+     * Get the sales of every day of a range that had orders
+     * @param from First day
+     * @param to Last day, inclusive
+     * @return Sales per day, in date order
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<DailySalesDTO> getDailySales(LocalDate from, LocalDate to) {
+        return summarize(from, to, DailySales::getSalesDate, DailyBookSales::getSalesDate).entrySet().stream()
+                .map(day -> DailySalesDTO.builder()
+                        .date(day.getKey())
+                        .orders(day.getValue().orders)
+                        .revenue(day.getValue().revenue)
+                        .units(day.getValue().units)
+                        .books(day.getValue().books)
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Get the sales of every month of a range that had orders, summed from the daily rollups
+     * @param from First month
+     * @param to Last month, inclusive
+     * @return Sales per month, in date order
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<MonthlySalesDTO> getMonthlySales(YearMonth from, YearMonth to) {
+        return summarize(from.atDay(1), to.atEndOfMonth(),
+                sales -> YearMonth.from(sales.getSalesDate()),
+                sales -> YearMonth.from(sales.getSalesDate())).entrySet().stream()
+                .map(month -> MonthlySalesDTO.builder()
+                        .month(month.getKey())
+                        .orders(month.getValue().orders)
+                        .revenue(month.getValue().revenue)
+                        .units(month.getValue().units)
+                        .books(month.getValue().books)
+                        .build())
+                .toList();
+    }
+
+    private <K extends Comparable<? super K>> Map<K, Totals> summarize(LocalDate from, LocalDate to,
+                                                               Function<DailySales, K> dayKey,
+                                                               Function<DailyBookSales, K> bookKey) {
+        requireRange(from, to);
+        Map<K, Totals> totals = new TreeMap<>();
+        for (DailySales sales : dailySalesRepository.findBySalesDateBetweenOrderBySalesDate(from, to)) {
+            Totals total = totals.computeIfAbsent(dayKey.apply(sales), key -> new Totals());
+            total.orders += sales.getOrderCount();
+            total.revenue += sales.getRevenue();
+        }
+        for (DailyBookSales sales : dailyBookSalesRepository.findBySalesDateBetween(from, to)) {
+            if (sales.getUnits() == 0) {
+                continue;
+            }
+            Totals total = totals.computeIfAbsent(bookKey.apply(sales), key -> new Totals());
+            total.units += sales.getUnits();
+            total.books.merge(sales.getBookId(), sales.getUnits(), Long::sum);
+        }
+        totals.values().removeIf(total -> total.orders == 0 && total.books.isEmpty());
+        return totals;
+    }
+
+    /**
+     * Regenerate the rollups of a range of days from orders and order_lines.
+     * Each chunk of days is deleted and aggregated again in its own transaction,
+     * so a rebuild of the whole history never holds one long transaction
+     * @param from First day
+     * @param to Last day, inclusive
+     * @return Number of days and chunks rebuilt
+     */
+    @Override
+    public SalesRebuildReportDTO rebuild(LocalDate from, LocalDate to) {
+        requireRange(from, to);
+
+        int chunks = 0;
+        for (LocalDate start = from; !start.isAfter(to); start = start.plusDays(rebuildChunkDays)) {
+            LocalDate end = start.plusDays(rebuildChunkDays - 1L).isAfter(to) ? to : start.plusDays(rebuildChunkDays - 1L);
+            LocalDate first = start;
+            int days = transactionTemplate.execute(status -> {
+                dailySalesRepository.deleteBetween(first, end);
+                dailyBookSalesRepository.deleteBetween(first, end);
+                dailyBookSalesRepository.rebuild(first.atStartOfDay(), end.plusDays(1).atStartOfDay());
+                return dailySalesRepository.rebuild(first.atStartOfDay(), end.plusDays(1).atStartOfDay());
+            });
+            chunks++;
+            log.info("rebuild() - Rebuilt sales from {} to {}, {} days with orders", first, end, days);
+        }
+
+        return SalesRebuildReportDTO.builder()
+                .from(from)
+                .to(to)
+                .chunks(chunks)
+                .days((int) ChronoUnit.DAYS.between(from, to) + 1)
+                .build();
+    }
+
+    private static void requireRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Both ends of the date range are required");
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Start date must not be after end date");
+        }
+    }
+
+    private static final class Totals {
+
+        private long orders;
+        private double revenue;
+        private long units;
+        private final Map<Long, Long> books = new HashMap<>();
+
+    }
+
+}
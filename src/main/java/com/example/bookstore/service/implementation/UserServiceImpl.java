@@ -1,35 +1,39 @@
 package com.example.bookstore.service.implementation;
 
+import com.example.bookstore.service.dto.CursorPageDTO;
 import com.example.bookstore.service.dto.OrderDTO;
+import com.example.bookstore.service.dto.PageDTO;
 import com.example.bookstore.service.dto.UserCreateDTO;
 import com.example.bookstore.service.dto.UserDTO;
 import com.example.bookstore.service.mapper.OrderMapper;
 import com.example.bookstore.service.mapper.UserMapper;
-import com.example.bookstore.model.Cart;
 import com.example.bookstore.model.User;
-import com.example.bookstore.repository.CartRepository;
 import com.example.bookstore.repository.UserRepository;
+import com.example.bookstore.retry.RetryOnConflict;
 import com.example.bookstore.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class UserServiceImpl implements UserService {
 
+    // Properties a page of users may be sorted by, besides the id
+    static final Set<String> SORTABLE = Set.of("username");
+
     @Autowired
     private UserRepository userRepository;
     private final OrderServiceImpl orderService;
-    private final CartRepository cartRepository;
 
-    public UserServiceImpl(OrderServiceImpl orderService, CartRepository cartRepository) {
+    public UserServiceImpl(OrderServiceImpl orderService) {
         this.orderService = orderService;
-        this.cartRepository = cartRepository;
     }
 
     /**
@@ -48,6 +52,7 @@ public class UserServiceImpl implements UserService {
      * @return User with the particular id
      */
     @Override
+    @Transactional(readOnly = true)
     public Optional<UserDTO> getUserById(Long id) {
         return userRepository.findById(id)
                 .map(UserMapper::toUserDTO);
@@ -58,6 +63,7 @@ public class UserServiceImpl implements UserService {
      * @return List of users
      */
     @Override
+    @Transactional(readOnly = true)
     public List<UserDTO> getAllUsers() {
         return userRepository.findAll()
                 .stream()
@@ -65,6 +71,31 @@ public class UserServiceImpl implements UserService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Get one page of users, ordered by the requested sort and then by id
+     * @param pageable Page number, size and sort
+     * @return The requested page of users
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public PageDTO<UserDTO> getUsers(Pageable pageable) {
+        return Paging.toPageDTO(userRepository.findAll(Paging.stable(pageable, "id", SORTABLE)), UserMapper::toUserDTO);
+    }
+
+    /**
+     * Get the users that follow a cursor, ordered by id
+     * @param after Id of the last user of the previous page, or null for the first page
+     * @param size Page size
+     * @return The page of users and the cursor of the next page
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDTO<UserDTO> getUsersAfter(Long after, int size) {
+        return Paging.toCursorPageDTO(
+                userRepository.findByIdGreaterThanOrderByIdAsc(Paging.after(after), Paging.keysetLimit(size)),
+                size, User::getId, UserMapper::toUserDTO);
+    }
+
     /**
      * Delete a user
      * @param id User id
@@ -79,26 +110,16 @@ public class UserServiceImpl implements UserService {
     }
 
     /**
-     * Method for user to confirm and convert cart to order
+     * Method for user to confirm and convert cart to order.
+     * The ownership check and the conversion are done by {@link OrderServiceImpl#convertCartToOrder}.
+     * A cart changed while it was checked out is read again and the checkout retried
      * @param userId User id
      * @param cartId Cart id
      * @return Order created from user's cart
      */
     @Override
+    @RetryOnConflict
     public Optional<OrderDTO> confirmAndConvertCartToOrder(Long userId, Long cartId) {
-        // Fetch the user (optional validation)
-        Optional<User> userOptional = userRepository.findById(userId);
-        if (userOptional.isEmpty()) {
-            throw new RuntimeException("User not found with id: " + userId);
-        }
-
-        // Fetch the cart for this user
-        Optional<Cart> cartOptional = cartRepository.findById(cartId);
-        if (cartOptional.isEmpty() || !cartOptional.get().getUser().equals(userOptional.get())) {
-            throw new RuntimeException("Cart not found for the user with id: " + userId);
-        }
-
-        // If cart is valid, proceed to convert it to an order by calling OrderService
         return orderService.convertCartToOrder(userId, cartId)
                 .map(OrderMapper::toOrderDTO);
     }
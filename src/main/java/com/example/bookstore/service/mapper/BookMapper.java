@@ -11,11 +11,13 @@ public class BookMapper {
                 .title(book.getTitle())
                 .author(book.getAuthor())
                 .price(book.getPrice())
+                .version(book.getVersion())
                 .build();
     }
 
     public static Book toBookEntity(BookDTO bookDTO) {
-        return new Book(bookDTO.getId(), bookDTO.getTitle(), bookDTO.getAuthor(), bookDTO.getPrice());
+        return new Book(bookDTO.getId(), bookDTO.getTitle(), bookDTO.getAuthor(), bookDTO.getPrice(),
+                bookDTO.getVersion() == null ? 0 : bookDTO.getVersion());
     }
 
 
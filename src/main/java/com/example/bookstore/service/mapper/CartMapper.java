@@ -1,16 +1,20 @@
 package com.example.bookstore.service.mapper;
 
 import com.example.bookstore.service.dto.CartDTO;
+import com.example.bookstore.service.dto.ItemMap;
 import com.example.bookstore.model.Cart;
 import com.example.bookstore.model.User;
 
+import java.util.HashMap;
+
 public class CartMapper {
 
     public static CartDTO toCartDTO(Cart cart) {
         return CartDTO.builder()
                 .cartId(cart.getCartId())
                 .userId(cart.getUser().getId())
-                .books(cart.getBooks())
+                .books(ItemMap.of(cart.getBooks()))
+                .version(cart.getVersion())
                 .build();
     }
 
@@ -18,7 +22,8 @@ public class CartMapper {
         Cart cart = new Cart();
         cart.setCartId(cartDTO.getCartId());
         cart.setUser(user);
-        cart.setBooks(cartDTO.getBooks());
+        cart.setBooks(cartDTO.getBooks() == null ? new HashMap<>() : cartDTO.getBooks().toMap());
+        cart.setVersion(cartDTO.getVersion() == null ? 0 : cartDTO.getVersion());
         return cart;
     }
 
@@ -0,0 +1,21 @@
+package com.example.bookstore.service.mapper;
+
+import com.example.bookstore.model.CheckoutRequest;
+import com.example.bookstore.service.dto.CheckoutStatusDTO;
+
+public class CheckoutMapper {
+
+    public static CheckoutStatusDTO toCheckoutStatusDTO(CheckoutRequest request) {
+        return CheckoutStatusDTO.builder()
+                .requestId(request.getId())
+                .userId(request.getUserId())
+                .cartId(request.getCartId())
+                .status(request.getStatus())
+                .orderId(request.getOrderId())
+                .error(request.getError())
+                .createdAt(request.getCreatedAt())
+                .completedAt(request.getCompletedAt())
+                .build();
+    }
+
+}
@@ -1,8 +1,16 @@
 package com.example.bookstore.service.mapper;
 
+import com.example.bookstore.model.OrderLine;
+import com.example.bookstore.service.dto.ItemMap;
 import com.example.bookstore.service.dto.OrderDTO;
 import com.example.bookstore.model.Order;
 import com.example.bookstore.model.User;
+import com.example.bookstore.service.dto.OrderDetailDTO;
+import com.example.bookstore.service.dto.OrderLineDTO;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
 
 public class OrderMapper {
 
@@ -10,17 +18,45 @@ public class OrderMapper {
         return OrderDTO.builder()
                 .orderId(order.getOrderId())
                 .userId(order.getUser().getId())
-                .books(order.getBooks())
+                .books(ItemMap.of(order.getLines(), OrderLine::getQuantity))
                 .total(order.getTotal())
                 .orderDate(order.getOrderDate())
                 .build();
     }
 
+    public static OrderDetailDTO toOrderDetailDTO(Order order) {
+        return OrderDetailDTO.builder()
+                .orderId(order.getOrderId())
+                .userId(order.getUser().getId())
+                .orderDate(order.getOrderDate())
+                .lines(order.getLines().entrySet().stream()
+                        .map(line -> toOrderLineDTO(line.getKey(), line.getValue()))
+                        .sorted(Comparator.comparing(OrderLineDTO::getBookId))
+                        .toList())
+                .total(order.getTotal())
+                .build();
+    }
+
+    public static OrderLineDTO toOrderLineDTO(Long bookId, OrderLine line) {
+        return OrderLineDTO.builder()
+                .bookId(bookId)
+                .title(line.getTitle())
+                .unitPrice(line.getUnitPrice())
+                .quantity(line.getQuantity())
+                .lineTotal(line.getUnitPrice() == null ? null : line.getUnitPrice() * line.getQuantity())
+                .build();
+    }
+
     public static Order toOrderEntity(OrderDTO orderDTO, User user) {
+        Map<Long, OrderLine> lines = new HashMap<>();
+        if (orderDTO.getBooks() != null) {
+            orderDTO.getBooks().forEach((bookId, quantity) -> lines.put(bookId, new OrderLine(quantity, null, null)));
+        }
+
         Order order = new Order();
         order.setOrderId(orderDTO.getOrderId());
         order.setUser(user);
-        order.setBooks(orderDTO.getBooks());
+        order.setLines(lines);
         order.setTotal(orderDTO.getTotal());
         order.setOrderDate(orderDTO.getOrderDate());
         return order;
@@ -0,0 +1,133 @@
+package com.example.bookstore.service.patch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Applies JSON merge patches to an entity type through a table of field handles built once.
+ * Each handle pairs a typed converter with a setter, so a patch is checked and converted field by field
+ * before anything is written to the object.
+ * <pre>
+ * FieldPatcher.forEntity(Book.class, "id", "version")
+ *         .field("title", PatchConverters.text(255), Book::setTitle)
+ *         .build();
+ * </pre>
+ * @param <T> Entity type
+ */
+public final class FieldPatcher<T> {
+
+    private final Map<String, Handle<T, ?>> handles;
+
+    private FieldPatcher(Builder<T> builder) {
+        this.handles = Collections.unmodifiableMap(new LinkedHashMap<>(builder.handles));
+    }
+
+    /**
+     * @param type Entity type
+     * @param idAttribute Id attribute, which cannot be patched
+     * @param versionAttribute Version attribute, which cannot be patched, or null if the entity is not versioned
+     * @return A builder of the handle table
+     */
+    public static <T> Builder<T> forEntity(Class<T> type, String idAttribute, String versionAttribute) {
+        return new Builder<>(idAttribute, versionAttribute);
+    }
+
+    /**
+     * Converts and validates every field of a patch
+     * @param fields Field values by name, as read from the request body
+     * @return The converted patch
+     * @throws IllegalArgumentException If a field is unknown, read-only or has an invalid value
+     */
+    public Patch<T> compile(Map<String, Object> fields) {
+        List<Assignment<T, ?>> assignments = new ArrayList<>(fields.size());
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            Handle<T, ?> handle = handles.get(field.getKey());
+            if (handle == null) {
+                throw new IllegalArgumentException("Unknown or read-only field: " + field.getKey());
+            }
+            assignments.add(handle.convert(field.getValue()));
+        }
+        return new Patch<>(assignments);
+    }
+
+    /**
+     * A converted patch, ready to be applied
+     * @param <T> Entity type
+     */
+    public static final class Patch<T> {
+
+        private final List<Assignment<T, ?>> assignments;
+
+        private Patch(List<Assignment<T, ?>> assignments) {
+            this.assignments = assignments;
+        }
+
+        public boolean isEmpty() {
+            return assignments.isEmpty();
+        }
+
+        /**
+         * Sets the patched fields of an object
+         * @param target Object to modify
+         */
+        public void applyTo(T target) {
+            for (Assignment<T, ?> assignment : assignments) {
+                assignment.applyTo(target);
+            }
+        }
+
+    }
+
+    public static final class Builder<T> {
+
+        private final String idAttribute;
+        private final String versionAttribute;
+        private final Map<String, Handle<T, ?>> handles = new LinkedHashMap<>();
+
+        private Builder(String idAttribute, String versionAttribute) {
+            this.idAttribute = idAttribute;
+            this.versionAttribute = versionAttribute;
+        }
+
+        /**
+         * Makes a field patchable
+         * @param name JSON name of the field, which is also its entity attribute name
+         * @param converter Converter and validator of the field values
+         * @param setter Setter of the field
+         * @return This builder
+         */
+        public <V> Builder<T> field(String name, PatchConverter<V> converter, BiConsumer<T, V> setter) {
+            if (name.equals(idAttribute) || name.equals(versionAttribute)) {
+                throw new IllegalArgumentException(name + " cannot be patched");
+            }
+            handles.put(name, new Handle<>(name, converter, setter));
+            return this;
+        }
+
+        public FieldPatcher<T> build() {
+            return new FieldPatcher<>(this);
+        }
+
+    }
+
+    private record Handle<T, V>(String name, PatchConverter<V> converter, BiConsumer<T, V> setter) {
+
+        Assignment<T, V> convert(Object raw) {
+            return new Assignment<>(this, converter.convert(name, raw));
+        }
+
+    }
+
+    private record Assignment<T, V>(Handle<T, V> handle, V value) {
+
+        void applyTo(T target) {
+            handle.setter.accept(target, value);
+        }
+
+    }
+
+}
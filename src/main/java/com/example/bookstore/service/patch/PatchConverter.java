@@ -0,0 +1,18 @@
+package com.example.bookstore.service.patch;
+
+/**
+ * Converts and validates the raw JSON value of one field of a patch
+ * @param <V> Type of the field
+ */
+@FunctionalInterface
+public interface PatchConverter<V> {
+
+    /**
+     * @param field Name of the field, for error messages
+     * @param raw Value as read from the request body: a String, Number, Boolean, null, List or Map
+     * @return The value to assign
+     * @throws IllegalArgumentException If the value has the wrong type or is not valid for the field
+     */
+    V convert(String field, Object raw);
+
+}
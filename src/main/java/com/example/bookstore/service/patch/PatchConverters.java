@@ -0,0 +1,58 @@
+package com.example.bookstore.service.patch;
+
+import java.math.BigDecimal;
+
+/**
+ * Typed converters for the common field types. JSON numbers may arrive as Integer, Long, Double or BigDecimal
+ * depending on how they were written, so numeric converters accept any Number and numeric strings.
+ */
+public final class PatchConverters {
+
+    private PatchConverters() {
+    }
+
+    /**
+     * @param maxLength Maximum number of characters
+     * @return Converter of non-blank strings, trimmed
+     */
+    public static PatchConverter<String> text(int maxLength) {
+        return (field, raw) -> {
+            if (!(raw instanceof String value) || value.isBlank()) {
+                throw new IllegalArgumentException(field + " must be a non-blank string");
+            }
+            String trimmed = value.trim();
+            if (trimmed.length() > maxLength) {
+                throw new IllegalArgumentException(field + " must be at most " + maxLength + " characters");
+            }
+            return trimmed;
+        };
+    }
+
+    /**
+     * @return Converter of finite, non-negative numbers
+     */
+    public static PatchConverter<Double> nonNegativeDouble() {
+        return (field, raw) -> {
+            double value = toDouble(field, raw);
+            if (!Double.isFinite(value) || value < 0) {
+                throw new IllegalArgumentException(field + " must be a non-negative number");
+            }
+            return value;
+        };
+    }
+
+    private static double toDouble(String field, Object raw) {
+        if (raw instanceof Number number) {
+            return number.doubleValue();
+        }
+        if (raw instanceof String value) {
+            try {
+                return new BigDecimal(value.trim()).doubleValue();
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(field + " must be a number");
+            }
+        }
+        throw new IllegalArgumentException(field + " must be a number");
+    }
+
+}
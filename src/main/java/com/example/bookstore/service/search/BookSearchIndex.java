@@ -0,0 +1,312 @@
+package com.example.bookstore.service.search;
+
+import com.example.bookstore.service.dto.BookDTO;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-process inverted index over book titles and authors.
+ * Text is split on anything that is not a letter or digit, case-folded and stripped of accents.
+ * Every query term must match the start of a title or author token; matches are ranked by
+ * whole-word title hits, then title prefixes, whole-word author hits and author prefixes.
+ * Terms shorter than {@value #MIN_PREFIX_LENGTH} characters only match whole words, since a one or two letter
+ * prefix expands to a large part of the vocabulary and most of the catalog.
+ * <p>
+ * A full load can run while books are being written: a book written after {@link #beginLoad()}
+ * is not replaced by the older row the load reads later, nor removed when the load did not read it.
+ */
+public class BookSearchIndex {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private static final int TITLE_WORD = 8;
+    private static final int TITLE_PREFIX = 4;
+    private static final int AUTHOR_WORD = 2;
+    private static final int AUTHOR_PREFIX = 1;
+
+    static final int MIN_PREFIX_LENGTH = 3;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final NavigableMap<String, Set<Long>> titleTokens = new TreeMap<>();
+    private final NavigableMap<String, Set<Long>> authorTokens = new TreeMap<>();
+    private Set<Long> writtenDuringLoad;
+
+    /**
+     * Adds a book, or replaces the indexed version of it
+     * @param book Book to index
+     */
+    public void put(BookDTO book) {
+        lock.writeLock().lock();
+        try {
+            if (writtenDuringLoad != null) {
+                writtenDuringLoad.add(book.getId());
+            }
+            index(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            if (writtenDuringLoad != null) {
+                writtenDuringLoad.add(id);
+            }
+            unindex(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void beginLoad() {
+        lock.writeLock().lock();
+        try {
+            writtenDuringLoad = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a book read by a full load, unless it was written since the load began
+     * @param book Book read from the database
+     */
+    public void load(BookDTO book) {
+        lock.writeLock().lock();
+        try {
+            if (writtenDuringLoad == null || !writtenDuringLoad.contains(book.getId())) {
+                index(book);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the books a full load did not read, except the ones written since it began.
+     * Must be called before {@link #endLoad()}
+     * @param read Ids of every book the load read
+     * @return Number of books removed
+     */
+    public int removeUnread(Set<Long> read) {
+        lock.writeLock().lock();
+        try {
+            List<Long> unread = documents.keySet().stream()
+                    .filter(id -> !read.contains(id) && (writtenDuringLoad == null || !writtenDuringLoad.contains(id)))
+                    .toList();
+            unread.forEach(this::unindex);
+            return unread.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void endLoad() {
+        lock.writeLock().lock();
+        try {
+            writtenDuringLoad = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param id Book id
+     * @param version Version of the book
+     * @return Whether the index holds that version of the book
+     */
+    public boolean contains(Long id, long version) {
+        lock.readLock().lock();
+        try {
+            Document document = documents.get(id);
+            return document != null && Objects.equals(document.book().getVersion(), version);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the books that match every term of the query
+     * @param query Search text
+     * @param offset Number of ranked matches to skip
+     * @param limit Maximum number of matches to return
+     * @return The requested matches, best first, and the total number of matches
+     */
+    public SearchHits search(String query, int offset, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (terms.isEmpty()) {
+            return new SearchHits(List.of(), 0);
+        }
+        // Longer terms match fewer tokens, so starting with them keeps the candidate set small
+        terms.sort(Comparator.comparingInt(String::length).reversed());
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> scores = null;
+            for (String term : terms) {
+                scores = scores == null ? scoreAll(term) : scoreCandidates(term, scores);
+                if (scores.isEmpty()) {
+                    return new SearchHits(List.of(), 0);
+                }
+            }
+            return new SearchHits(rank(scores, offset, limit), scores.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Scores of every book that matches the first term, from the postings of the tokens it matches
+    private Map<Long, Integer> scoreAll(String term) {
+        Map<Long, Integer> scores = new HashMap<>();
+        score(titleTokens, term, TITLE_WORD, TITLE_PREFIX, scores);
+        score(authorTokens, term, AUTHOR_WORD, AUTHOR_PREFIX, scores);
+        return scores;
+    }
+
+    private static void score(NavigableMap<String, Set<Long>> tokens, String term, int word, int prefix,
+                              Map<Long, Integer> scores) {
+        Map<String, Set<Long>> matches = term.length() < MIN_PREFIX_LENGTH
+                ? tokens.subMap(term, true, term, true)
+                : tokens.subMap(term, true, term + Character.MAX_VALUE, false);
+        for (Map.Entry<String, Set<Long>> token : matches.entrySet()) {
+            int weight = token.getKey().length() == term.length() ? word : prefix;
+            for (Long id : token.getValue()) {
+                scores.merge(id, weight, Math::max);
+            }
+        }
+    }
+
+    // Later terms only check the tokens of the books still matching, which are never more than the first term
+    // matched, instead of expanding the term over the whole vocabulary
+    private Map<Long, Integer> scoreCandidates(String term, Map<Long, Integer> candidates) {
+        Map<Long, Integer> scores = new HashMap<>();
+        candidates.forEach((id, previous) -> {
+            Document document = documents.get(id);
+            int weight = Math.max(weight(document.titleTokens(), term, TITLE_WORD, TITLE_PREFIX),
+                    weight(document.authorTokens(), term, AUTHOR_WORD, AUTHOR_PREFIX));
+            if (weight > 0) {
+                scores.put(id, previous + weight);
+            }
+        });
+        return scores;
+    }
+
+    private static int weight(Set<String> tokens, String term, int word, int prefix) {
+        if (tokens.contains(term)) {
+            return word;
+        }
+        if (term.length() >= MIN_PREFIX_LENGTH) {
+            for (String token : tokens) {
+                if (token.startsWith(term)) {
+                    return prefix;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private List<BookDTO> rank(Map<Long, Integer> scores, int offset, int limit) {
+        int wanted = offset + limit;
+        Comparator<Map.Entry<Long, Integer>> best = Map.Entry.<Long, Integer>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey());
+        // Keep only the best offset + limit matches instead of sorting all of them
+        PriorityQueue<Map.Entry<Long, Integer>> top = new PriorityQueue<>(best.reversed());
+        for (Map.Entry<Long, Integer> match : scores.entrySet()) {
+            top.add(match);
+            if (top.size() > wanted) {
+                top.poll();
+            }
+        }
+
+        List<Map.Entry<Long, Integer>> ranked = new ArrayList<>(top);
+        ranked.sort(best);
+        return ranked.stream()
+                .skip(offset)
+                .map(match -> copyOf(documents.get(match.getKey()).book()))
+                .toList();
+    }
+
+    private void index(BookDTO book) {
+        unindex(book.getId());
+        Document document = new Document(copyOf(book), Set.copyOf(tokenize(book.getTitle())),
+                Set.copyOf(tokenize(book.getAuthor())));
+        documents.put(book.getId(), document);
+        document.titleTokens().forEach(token -> titleTokens.computeIfAbsent(token, key -> new HashSet<>()).add(book.getId()));
+        document.authorTokens().forEach(token -> authorTokens.computeIfAbsent(token, key -> new HashSet<>()).add(book.getId()));
+    }
+
+    private void unindex(Long id) {
+        Document document = documents.remove(id);
+        if (document != null) {
+            document.titleTokens().forEach(token -> removePosting(titleTokens, token, id));
+            document.authorTokens().forEach(token -> removePosting(authorTokens, token, id));
+        }
+    }
+
+    private static void removePosting(Map<String, Set<Long>> tokens, String token, Long id) {
+        Set<Long> ids = tokens.get(token);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            tokens.remove(token);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(folded)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static BookDTO copyOf(BookDTO book) {
+        return BookDTO.builder()
+                .id(book.getId())
+                .title(book.getTitle())
+                .author(book.getAuthor())
+                .price(book.getPrice())
+                .version(book.getVersion())
+                .build();
+    }
+
+    public record SearchHits(List<BookDTO> items, long total) {
+    }
+
+    private record Document(BookDTO book, Set<String> titleTokens, Set<String> authorTokens) {
+    }
+
+}
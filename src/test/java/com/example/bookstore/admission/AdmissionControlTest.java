@@ -0,0 +1,131 @@
+package com.example.bookstore.admission;
+
+import com.example.bookstore.model.Cart;
+import com.example.bookstore.model.User;
+import com.example.bookstore.repository.CartRepository;
+import com.example.bookstore.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.HashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AdmissionControlTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AdmissionInterceptor admissionInterceptor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private AdmissionSettings original;
+
+    @BeforeEach
+    void setUp() {
+        original = admissionInterceptor.getSettings();
+    }
+
+    @AfterEach
+    void tearDown() {
+        admissionInterceptor.setSettings(original);
+    }
+
+    @Test
+    void userOverTheRateIsRejectedWithRetryAfter() throws Exception {
+        reconfigure("{\"requestsPerSecond\": 0.5, \"burst\": 2}")
+                .andExpect(jsonPath("$.burst").value(2));
+        long user = System.nanoTime();
+        double before = rejected("rate_limit");
+
+        confirm(user).andExpect(status().is4xxClientError()).andExpect(header().doesNotExist(HttpHeaders.RETRY_AFTER));
+        confirm(user).andExpect(status().is4xxClientError()).andExpect(header().doesNotExist(HttpHeaders.RETRY_AFTER));
+        confirm(user).andExpect(status().isTooManyRequests()).andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"));
+        confirm(user + 1).andExpect(status().is4xxClientError()).andExpect(header().doesNotExist(HttpHeaders.RETRY_AFTER));
+
+        assertThat(rejected("rate_limit")).isEqualTo(before + 1);
+    }
+
+    @Test
+    void cartWritesShareTheBucketOfTheCartOwner() throws Exception {
+        reconfigure("{\"requestsPerSecond\": 0.5, \"burst\": 2}");
+        User owner = userRepository.save(new User(null, "owner-" + System.nanoTime(), "secret"));
+        User other = userRepository.save(new User(null, "other-" + System.nanoTime(), "secret"));
+        Cart first = cartRepository.save(new Cart(null, new HashMap<>(), owner));
+        Cart second = cartRepository.save(new Cart(null, new HashMap<>(), owner));
+        Cart third = cartRepository.save(new Cart(null, new HashMap<>(), other));
+
+        removeLine(first).andExpect(header().doesNotExist(HttpHeaders.RETRY_AFTER));
+        removeLine(second).andExpect(header().doesNotExist(HttpHeaders.RETRY_AFTER));
+        removeLine(first).andExpect(status().isTooManyRequests());
+        removeLine(third).andExpect(header().doesNotExist(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void readsAreNeverLimited() throws Exception {
+        reconfigure("{\"requestsPerSecond\": 0.5, \"burst\": 1}");
+
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/api/v1/carts/page")).andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    void writesAreShedWhileTheConnectionWaitIsTooHigh() throws Exception {
+        reconfigure("{\"maxPoolWait\": \"1ns\", \"sampleInterval\": \"0s\", \"retryAfter\": \"3s\"}");
+        double before = rejected("shed");
+
+        mockMvc.perform(get("/api/v1/books/page")).andExpect(status().isOk());
+        confirm(System.nanoTime()).andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "3"));
+
+        assertThat(rejected("shed")).isGreaterThan(before);
+    }
+
+    private ResultActions reconfigure(String settings) throws Exception {
+        return mockMvc.perform(post("/actuator/admission").contentType(MediaType.APPLICATION_JSON).content(settings))
+                .andExpect(status().isOk());
+    }
+
+    private ResultActions confirm(long userId) throws Exception {
+        return mockMvc.perform(post("/api/users/" + userId + "/" + Long.MAX_VALUE + "/confirm"));
+    }
+
+    private ResultActions removeLine(Cart cart) throws Exception {
+        return mockMvc.perform(delete("/api/v1/carts/" + cart.getCartId() + "/add/" + Long.MAX_VALUE));
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.find(AdmissionInterceptor.REJECTED).tag("reason", reason).counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+
+}
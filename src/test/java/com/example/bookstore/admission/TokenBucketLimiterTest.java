@@ -0,0 +1,57 @@
+package com.example.bookstore.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final TokenBucketLimiter limiter = new TokenBucketLimiter(100);
+
+    @Test
+    void burstIsAdmittedThenTheSustainedRate() {
+        AdmissionSettings settings = settings(2, 3);
+        long now = 10 * SECOND;
+
+        assertThat(limiter.tryAcquire("a", now, settings)).isZero();
+        assertThat(limiter.tryAcquire("a", now, settings)).isZero();
+        assertThat(limiter.tryAcquire("a", now, settings)).isZero();
+        assertThat(limiter.tryAcquire("a", now, settings)).isEqualTo(SECOND / 2);
+
+        assertThat(limiter.tryAcquire("a", now + SECOND / 2, settings)).isZero();
+        assertThat(limiter.tryAcquire("a", now + SECOND / 2, settings)).isPositive();
+    }
+
+    @Test
+    void keysHaveTheirOwnBuckets() {
+        AdmissionSettings settings = settings(1, 1);
+        long now = 10 * SECOND;
+
+        assertThat(limiter.tryAcquire("a", now, settings)).isZero();
+        assertThat(limiter.tryAcquire("a", now, settings)).isPositive();
+        assertThat(limiter.tryAcquire("b", now, settings)).isZero();
+    }
+
+    @Test
+    void idleBucketsAreDroppedWhenThereAreTooManyKeys() {
+        TokenBucketLimiter small = new TokenBucketLimiter(2);
+        AdmissionSettings settings = settings(1, 1);
+        long now = System.nanoTime();
+
+        small.tryAcquire("a", now, settings);
+        small.tryAcquire("b", now, settings);
+        small.tryAcquire("c", now + 5 * SECOND, settings);
+
+        assertThat(small.size()).isEqualTo(1);
+    }
+
+    private static AdmissionSettings settings(double requestsPerSecond, int burst) {
+        return new AdmissionSettings(true, requestsPerSecond, burst, Duration.ZERO, Duration.ofSeconds(1),
+                Duration.ofSeconds(1));
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.example.bookstore.controller;
+
+import com.example.bookstore.repository.BookRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BookImportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Test
+    void importsJsonInBatchesAndReportsRejectedRows() throws Exception {
+        long before = bookRepository.count();
+        String json = """
+                [
+                  {"title": "One", "author": "A", "price": 1.5},
+                  {"title": "Two", "author": "B", "price": 2},
+                  {"title": "", "author": "C", "price": 3},
+                  {"title": "Four", "author": "D", "price": -1},
+                  {"title": "Five", "author": "E", "price": 5}
+                ]
+                """;
+
+        List<String> lines = importBooks(MediaType.APPLICATION_JSON, json);
+
+        assertThat(lines).hasSize(3);
+        assertThat(lines.get(0)).contains("\"batch\":1", "\"imported\":2", "\"rejected\":1", "\"row\":3");
+        assertThat(lines.get(1)).contains("\"batch\":2", "\"imported\":1", "\"rejected\":1", "\"row\":4");
+        assertThat(lines.get(2)).contains("\"rows\":5", "\"imported\":3", "\"rejected\":2", "\"completed\":true");
+        assertThat(bookRepository.count()).isEqualTo(before + 3);
+    }
+
+    @Test
+    void importsCsvWithHeaderAndQuotedFields() throws Exception {
+        long before = bookRepository.count();
+        String csv = """
+                title,author,price
+                "Hello, World","Doe, Jane",12.5
+                Plain,Someone,not-a-price
+                """;
+
+        List<String> lines = importBooks(MediaType.parseMediaType("text/csv"), csv);
+
+        assertThat(lines.get(lines.size() - 1)).contains("\"rows\":2", "\"imported\":1", "\"rejected\":1");
+        assertThat(bookRepository.count()).isEqualTo(before + 1);
+        assertThat(bookRepository.findAll()).anyMatch(book -> book.getTitle().equals("Hello, World")
+                && book.getAuthor().equals("Doe, Jane"));
+    }
+
+    @Test
+    void reportsMalformedJsonWithoutDroppingEarlierBatches() throws Exception {
+        long before = bookRepository.count();
+        String json = "[{\"title\": \"One\", \"author\": \"A\", \"price\": 1}, {\"title\": ";
+
+        List<String> lines = importBooks(MediaType.APPLICATION_JSON, json);
+
+        assertThat(lines.get(lines.size() - 1)).contains("\"completed\":false", "\"imported\":1");
+        assertThat(bookRepository.count()).isEqualTo(before + 1);
+    }
+
+    private List<String> importBooks(MediaType contentType, String body) throws Exception {
+        return mockMvc.perform(post("/api/v1/books/bulk").contentType(contentType).content(body))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString()
+                .lines()
+                .toList();
+    }
+
+}
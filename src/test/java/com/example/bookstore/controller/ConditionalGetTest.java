@@ -0,0 +1,124 @@
+package com.example.bookstore.controller;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.model.Cart;
+import com.example.bookstore.model.User;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.repository.CartRepository;
+import com.example.bookstore.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ConditionalGetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void cachedBookIsRevalidatedWithoutAQuery() throws Exception {
+        Book book = bookRepository.save(new Book(null, "Conditional", "Author", 8.0));
+        String path = "/api/v1/books/" + book.getId();
+
+        String etag = etagOf(path);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void updatedBookIsSentAgainWithANewETag() throws Exception {
+        Book book = bookRepository.save(new Book(null, "Before", "Author", 8.0));
+        String path = "/api/v1/books/" + book.getId();
+        String etag = etagOf(path);
+
+        mockMvc.perform(patch(path).contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"After\"}"))
+                .andExpect(status().isOk());
+
+        String updated = mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"title\":\"After\"")))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(updated).isNotEqualTo(etag);
+    }
+
+    @Test
+    void catalogETagChangesWhenABookIsAdded() throws Exception {
+        String etag = etagOf("/api/v1/books/all");
+
+        mockMvc.perform(get("/api/v1/books/all").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        bookRepository.save(new Book(null, "Newcomer", "Author", 3.0));
+
+        mockMvc.perform(get("/api/v1/books/all").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void cartETagChangesWhenALineIsAdded() throws Exception {
+        User user = userRepository.save(new User(null, "etag-" + System.nanoTime(), "secret"));
+        Book book = bookRepository.save(new Book(null, "Carted", "Author", 2.0));
+        Cart cart = cartRepository.save(new Cart(null, new HashMap<>(Map.of(book.getId(), 1)), user));
+        String path = "/api/v1/carts/" + cart.getCartId();
+        String etag = etagOf(path);
+
+        mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(post(path + "/add/" + book.getId()).param("quantity", "2"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"" + book.getId() + "\":3")));
+    }
+
+    private String etagOf(String path) throws Exception {
+        String etag = mockMvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotBlank();
+        return etag;
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.example.bookstore.controller;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.model.Order;
+import com.example.bookstore.model.OrderLine;
+import com.example.bookstore.model.User;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.repository.OrderRepository;
+import com.example.bookstore.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ExportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void exportBooksWritesOneJsonObjectPerLine() throws Exception {
+        long before = bookRepository.count();
+        bookRepository.save(new Book(null, "Export One", "Author", 10.0));
+        bookRepository.save(new Book(null, "Export Two", "Author", 12.5));
+
+        String body = export("/api/v1/books/export");
+
+        assertThat(body.lines()).hasSize((int) before + 2);
+        assertThat(body.lines()).allMatch(line -> line.startsWith("{") && line.endsWith("}"));
+        assertThat(body).contains("\"title\":\"Export Two\"");
+    }
+
+    @Test
+    void exportOrdersIncludesUserAndBooks() throws Exception {
+        User user = userRepository.save(new User(null, "export-" + System.nanoTime(), "secret"));
+        Book book = bookRepository.save(new Book(null, "Ordered", "Author", 5.0));
+        Order order = orderRepository.save(Order.builder()
+                .user(user)
+                .lines(Map.of(book.getId(), new OrderLine(3, 5.0, book.getTitle())))
+                .total(15.0)
+                .orderDate(LocalDateTime.now())
+                .build());
+
+        String body = export("/api/v1/order/export");
+
+        assertThat(body.lines())
+                .anyMatch(line -> line.contains("\"orderId\":" + order.getOrderId())
+                        && line.contains("\"userId\":" + user.getId())
+                        && line.contains("\"" + book.getId() + "\":3"));
+    }
+
+    private String export(String url) throws Exception {
+        MvcResult started = mockMvc.perform(get(url))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(NdjsonWriter.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+    }
+
+}
@@ -0,0 +1,145 @@
+package com.example.bookstore.controller;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.model.Cart;
+import com.example.bookstore.model.User;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.repository.CartRepository;
+import com.example.bookstore.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class IdempotencyKeyTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private IdempotentRequests idempotentRequests;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+    private Cart cart;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User(null, "idempotency-" + System.nanoTime(), "secret"));
+        book = bookRepository.save(new Book(null, "Retried", "Author", 1.0));
+        cart = cartRepository.save(new Cart(null, new HashMap<>(), user));
+    }
+
+    @Test
+    void retriedAddIsReplayedWithoutAddingAgain() throws Exception {
+        String key = "add-" + System.nanoTime();
+
+        String first = addBook(key).andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotentRequests.REPLAYED))
+                .andReturn().getResponse().getContentAsString();
+        String retry = addBook(key).andExpect(status().isOk())
+                .andExpect(header().string(IdempotentRequests.REPLAYED, "true"))
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(retry).isEqualTo(first);
+        assertThat(cartRepository.findWithBooksById(cart.getCartId()).orElseThrow().getBooks())
+                .containsExactly(Map.entry(book.getId(), 2));
+    }
+
+    @Test
+    void keyReusedForAnotherRequestIsRejected() throws Exception {
+        String key = "reused-" + System.nanoTime();
+        addBook(key).andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/v1/carts/{cartId}/add/{bookId}", cart.getCartId(), book.getId())
+                        .param("quantity", "5")
+                        .header(IdempotentRequests.IDEMPOTENCY_KEY, key))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    void sameKeyOnAnotherCartIsNotReplayed() throws Exception {
+        String key = "shared-" + System.nanoTime();
+        Cart other = cartRepository.save(new Cart(null, new HashMap<>(), user));
+        addBook(key).andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/v1/carts/{cartId}/add/{bookId}", other.getCartId(), book.getId())
+                        .param("quantity", "2")
+                        .header(IdempotentRequests.IDEMPOTENCY_KEY, key))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotentRequests.REPLAYED));
+
+        assertThat(cartRepository.findWithBooksById(other.getCartId()).orElseThrow().getBooks())
+                .containsExactly(Map.entry(book.getId(), 2));
+    }
+
+    @Test
+    void concurrentDuplicatesShareOneExecution() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ResponseEntity<Integer>>> responses = IntStream.range(0, 8)
+                    .mapToObj(i -> clients.submit(() -> idempotentRequests.execute("concurrent", "test", "test", () -> {
+                        int execution = executions.incrementAndGet();
+                        await(release);
+                        return ResponseEntity.ok(execution);
+                    })))
+                    .toList();
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<ResponseEntity<Integer>> response : responses) {
+                assertThat(response.get().getBody()).isEqualTo(1);
+            }
+            assertThat(executions).hasValue(1);
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    private ResultActions addBook(String key) throws Exception {
+        return mockMvc.perform(post("/api/v1/carts/{cartId}/add/{bookId}", cart.getCartId(), book.getId())
+                .param("quantity", "2")
+                .header(IdempotentRequests.IDEMPOTENCY_KEY, key));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,166 @@
+package com.example.bookstore.controller;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.model.Cart;
+import com.example.bookstore.model.User;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.repository.CartRepository;
+import com.example.bookstore.repository.UserRepository;
+import com.example.bookstore.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.AspectJPrecedenceInformation;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class OptimisticConcurrencyTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Test
+    void bookPatchWithAStaleVersionIsAConflict() throws Exception {
+        Book book = bookRepository.save(new Book(null, "Contended", "Author", 4.0));
+        String path = "/api/v1/books/" + book.getId();
+        String etag = mockMvc.perform(get(path)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        String newEtag = mockMvc.perform(patch(path).header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"price\": 5}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.price").value(5.0))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(patch(path).header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"price\": 6}"))
+                .andExpect(status().isConflict())
+                .andExpect(content().string(containsString("changed by another request")));
+        mockMvc.perform(patch(path).header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().isConflict());
+
+        assertThat(bookRepository.findById(book.getId())).get().extracting(Book::getPrice).isEqualTo(5.0);
+        mockMvc.perform(patch(path).header(HttpHeaders.IF_MATCH, newEtag)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"price\": 6}"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void concurrentPatchesWithoutAVersionAreRetried() throws Exception {
+        Book book = bookRepository.save(new Book(null, "Raced", "Author", 4.0));
+        String path = "/api/v1/books/" + book.getId();
+        int rounds = 20;
+
+        CyclicBarrier start = new CyclicBarrier(2);
+        ExecutorService clients = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < rounds; round++) {
+                List<Future<Integer>> statuses = new ArrayList<>();
+                for (int client = 0; client < 2; client++) {
+                    String body = "{\"price\": " + (10 + round * 2 + client) + "}";
+                    statuses.add(clients.submit(() -> {
+                        start.await();
+                        return mockMvc.perform(patch(path).contentType(MediaType.APPLICATION_JSON).content(body))
+                                .andReturn().getResponse().getStatus();
+                    }));
+                }
+                for (Future<Integer> status : statuses) {
+                    assertThat(status.get()).isEqualTo(200);
+                }
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+
+        assertThat(bookRepository.findById(book.getId())).get().extracting(Book::getVersion)
+                .isEqualTo(book.getVersion() + 2L * rounds);
+    }
+
+    @Test
+    void patchOfAMissingBookIsNotAConflict() throws Exception {
+        mockMvc.perform(patch("/api/v1/books/" + Long.MAX_VALUE).header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"price\": 6}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void invalidIfMatchIsABadRequest() throws Exception {
+        Book book = bookRepository.save(new Book(null, "Tagged", "Author", 4.0));
+
+        mockMvc.perform(patch("/api/v1/books/" + book.getId()).header(HttpHeaders.IF_MATCH, "\"a\", \"b\"")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"price\": 6}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void cartOperationsWithAStaleVersionAreAConflict() throws Exception {
+        User user = userRepository.save(new User(null, "contended-" + System.nanoTime(), "secret"));
+        Book book = bookRepository.save(new Book(null, "In cart", "Author", 4.0));
+        Cart cart = cartRepository.save(new Cart(null, new HashMap<>(Map.of(book.getId(), 1)), user));
+        String path = "/api/v1/carts/" + cart.getCartId();
+        String etag = mockMvc.perform(get(path)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String setQuantity = "[{\"op\": \"SET\", \"bookId\": " + book.getId() + ", \"quantity\": 3}]";
+
+        mockMvc.perform(post(path + "/add/" + book.getId()).param("quantity", "1"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post(path + "/lines").header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON).content(setQuantity))
+                .andExpect(status().isConflict());
+
+        String current = mockMvc.perform(get(path)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(post(path + "/lines").header(HttpHeaders.IF_MATCH, current)
+                        .contentType(MediaType.APPLICATION_JSON).content(setQuantity))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void checkoutIsRetriedOutsideOfItsTransaction() {
+        List<String> advice = Arrays.stream(((Advised) userService).getAdvisors())
+                .map(advisor -> advisor instanceof AspectJPrecedenceInformation aspect
+                        ? aspect.getAspectName()
+                        : advisor.getAdvice().getClass().getSimpleName())
+                .toList();
+
+        assertThat(advice).contains("conflictRetryAspect", TransactionInterceptor.class.getSimpleName());
+        assertThat(advice.indexOf("conflictRetryAspect"))
+                .isLessThan(advice.indexOf(TransactionInterceptor.class.getSimpleName()));
+    }
+
+}
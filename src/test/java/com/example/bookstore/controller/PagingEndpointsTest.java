@@ -0,0 +1,103 @@
+package com.example.bookstore.controller;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class PagingEndpointsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    private List<Book> books;
+
+    @BeforeEach
+    void setUp() {
+        // Same price, above anything else in the catalog, so the id alone decides their order
+        double price = 1.0e12 + System.nanoTime() % 1000;
+        books = bookRepository.saveAll(IntStream.range(0, 3)
+                .mapToObj(i -> new Book(null, "Paged " + i, "Author", price))
+                .toList());
+    }
+
+    @Test
+    void rowsWithEqualSortValuesKeepTheirOrderAcrossPages() throws Exception {
+        mockMvc.perform(get("/api/v1/books/page").param("sort", "price,desc").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(books.get(0).getId()))
+                .andExpect(jsonPath("$.items[1].id").value(books.get(1).getId()));
+
+        mockMvc.perform(get("/api/v1/books/page").param("sort", "price,desc").param("size", "2").param("page", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(books.get(2).getId()));
+    }
+
+    @Test
+    void scrollReturnsTheCursorOfTheNextPage() throws Exception {
+        mockMvc.perform(get("/api/v1/books/scroll").param("after", String.valueOf(books.get(0).getId() - 1))
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].id").value(books.get(0).getId()))
+                .andExpect(jsonPath("$.next").value(books.get(1).getId()));
+
+        mockMvc.perform(get("/api/v1/books/scroll").param("after", String.valueOf(books.get(1).getId()))
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].id").value(books.get(2).getId()))
+                .andExpect(jsonPath("$.next").value(nullValue()));
+    }
+
+    @Test
+    void oversizedPagesAreClamped() throws Exception {
+        mockMvc.perform(get("/api/v1/books/scroll").param("size", "10000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(500));
+
+        mockMvc.perform(get("/api/v1/books/page").param("size", "10000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(500));
+    }
+
+    @Test
+    void sortingByAPropertyOutsideTheWhitelistIsABadRequest() throws Exception {
+        mockMvc.perform(get("/api/users/page").param("sort", "password"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/order/page").param("sort", "books"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/carts/page").param("sort", "user"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/books/page").param("sort", "unknown"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void whitelistedPropertiesCanBeSortedBy() throws Exception {
+        mockMvc.perform(get("/api/users/page").param("sort", "username"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/order/page").param("sort", "orderDate,desc"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/books/page").param("sort", "title").param("sort", "author"))
+                .andExpect(status().isOk());
+    }
+
+}
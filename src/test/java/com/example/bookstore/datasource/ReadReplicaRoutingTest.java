@@ -0,0 +1,147 @@
+package com.example.bookstore.datasource;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.model.Cart;
+import com.example.bookstore.model.CheckoutStatus;
+import com.example.bookstore.model.User;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.repository.CartRepository;
+import com.example.bookstore.repository.UserRepository;
+import com.example.bookstore.service.dto.BookDTO;
+import com.example.bookstore.service.dto.CheckoutStatusDTO;
+import com.example.bookstore.service.implementation.BookServiceImpl;
+import com.example.bookstore.service.implementation.CartServiceImpl;
+import com.example.bookstore.service.implementation.CheckoutServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReadReplicaRoutingTest.PRIMARY_URL,
+        "bookstore.datasource.replica.url=" + ReadReplicaRoutingTest.REPLICA_URL,
+        // Cached rows would hide which database a read went to
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+class ReadReplicaRoutingTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private BookServiceImpl bookService;
+
+    @Autowired
+    private CartServiceImpl cartService;
+
+    @Autowired
+    private CheckoutServiceImpl checkoutService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        replicate();
+    }
+
+    @Test
+    void readOnlyReadsWaitForTheReplicaToCatchUp() throws SQLException {
+        BookDTO saved = bookService.saveBook(new BookDTO(null, "Replicated", "Author", 5.0));
+
+        assertThat(bookService.getBooksAfter(saved.getId() - 1, 1).getItems()).isEmpty();
+        assertThat(readInWriteTransaction(saved.getId())).isPresent();
+
+        replicate();
+
+        assertThat(bookService.getBooksAfter(saved.getId() - 1, 1).getItems())
+                .extracting(BookDTO::getTitle).containsExactly("Replicated");
+    }
+
+    @Test
+    void booksReadFromTheReplicaAreNotCached() throws SQLException {
+        User user = userRepository.save(new User(null, "lagging-" + System.nanoTime(), "secret"));
+        Book book = bookRepository.save(new Book(null, "Lagging", "Author", 5.0));
+        Cart cart = cartRepository.save(new Cart(null, new HashMap<>(Map.of(book.getId(), 1)), user));
+        replicate();
+
+        bookService.updateBookByFields(book.getId(), Map.of("price", 7.0));
+
+        assertThat(cartService.priceCart(cart.getCartId()).getTotal()).isEqualTo(5.0);
+        assertThat(bookService.getBookById(book.getId())).map(BookDTO::getPrice).contains(7.0);
+        assertThat(bookService.getBookVersion(book.getId())).contains(book.getVersion() + 1);
+    }
+
+    @Test
+    void readsInsideAWriteTransactionStayOnThePrimary() throws SQLException {
+        Book book = bookRepository.save(new Book(null, "Before", "Author", 5.0));
+        replicate();
+
+        bookService.updateBookByFields(book.getId(), Map.of("title", "After"));
+
+        assertThat(readInWriteTransaction(book.getId())).map(Book::getTitle).contains("After");
+        assertThat(bookRepository.findById(book.getId())).map(Book::getTitle).contains("Before");
+    }
+
+    @Test
+    void checkoutSeesACartTheReplicaHasNotReceived() {
+        User user = userRepository.save(new User(null, "replica-" + System.nanoTime(), "secret"));
+        Book book = bookRepository.save(new Book(null, "Unreplicated", "Author", 3.0));
+        Cart cart = cartRepository.save(new Cart(null, new HashMap<>(Map.of(book.getId(), 1)), user));
+
+        CheckoutStatusDTO submitted = checkoutService.submitCheckout(user.getId(), cart.getCartId());
+
+        assertThat(submitted.getStatus()).isIn(CheckoutStatus.PENDING, CheckoutStatus.PROCESSING,
+                CheckoutStatus.COMPLETED);
+        assertThat(checkoutService.getCheckoutStatus(user.getId(), submitted.getRequestId())).isPresent();
+    }
+
+    private Optional<Book> readInWriteTransaction(Long bookId) {
+        return new TransactionTemplate(transactionManager).execute(status -> bookRepository.findById(bookId));
+    }
+
+    // Stands in for replication: the replica is replaced by a copy of the primary
+    private static void replicate() throws SQLException {
+        List<String> script = new ArrayList<>();
+        try (Connection primary = DriverManager.getConnection(PRIMARY_URL, "sa", "");
+             Statement statement = primary.createStatement();
+             ResultSet rows = statement.executeQuery("script")) {
+            while (rows.next()) {
+                script.add(rows.getString(1));
+            }
+        }
+        try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = replica.createStatement()) {
+            statement.execute("drop all objects");
+            for (String sql : script) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.example.bookstore.load;
+
+import com.example.bookstore.BookstoreApplication;
+import com.example.bookstore.service.BookService;
+import com.example.bookstore.service.CartService;
+import com.example.bookstore.service.UserService;
+import com.example.bookstore.service.dto.BookDTO;
+import com.example.bookstore.service.dto.CartDTO;
+import com.example.bookstore.service.dto.ItemMap;
+import com.example.bookstore.service.dto.UserCreateDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares concurrent checkout throughput with the default Tomcat thread pool and with virtual threads.
+ * Both runs use the same small request thread pool so the difference comes from the execution mode.
+ */
+@Slf4j
+@Tag("load")
+class CheckoutThroughputLoadTest {
+
+    private static final int CHECKOUTS = 2_000;
+    private static final int CLIENTS = 200;
+    private static final int BOOKS = 500;
+    private static final int LINES_PER_CART = 20;
+
+    @Test
+    void compareCheckoutThroughput() throws Exception {
+        double platform = checkoutsPerSecond(false);
+        double virtual = checkoutsPerSecond(true);
+
+        log.info("Checkout throughput with {} concurrent clients: platform threads {}/s, virtual threads {}/s",
+                CLIENTS, Math.round(platform), Math.round(virtual));
+
+        assertThat(platform).isPositive();
+        assertThat(virtual).isPositive();
+    }
+
+    private double checkoutsPerSecond(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BookstoreApplication.class)
+                .properties(Map.of(
+                        "server.port", "0",
+                        "server.tomcat.threads.max", "20",
+                        "spring.threads.virtual.enabled", String.valueOf(virtualThreads),
+                        // Every checkout belongs to one user, whose admission bucket would shed most of them
+                        "bookstore.admission.enabled", "false",
+                        "spring.datasource.url", "jdbc:h2:mem:load-" + virtualThreads
+                                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "logging.level.root", "warn",
+                        "logging.level.com.example.bookstore.load", "info"))
+                .run()) {
+
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            long userId = context.getBean(UserService.class)
+                    .createUser(new UserCreateDTO(null, "load-" + virtualThreads, "secret")).getId();
+            List<Long> cartIds = seedCarts(context, userId);
+
+            HttpClient client = HttpClient.newHttpClient();
+            AtomicInteger failures = new AtomicInteger();
+            List<Future<?>> checkouts = new ArrayList<>(CHECKOUTS);
+
+            long start = System.nanoTime();
+            try (ExecutorService clients = Executors.newFixedThreadPool(CLIENTS)) {
+                for (Long cartId : cartIds) {
+                    checkouts.add(clients.submit(() -> {
+                        HttpRequest request = HttpRequest.newBuilder(
+                                        URI.create("http://localhost:" + port + "/api/users/" + userId + "/" + cartId + "/confirm"))
+                                .POST(HttpRequest.BodyPublishers.noBody())
+                                .build();
+                        if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+                            failures.incrementAndGet();
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> checkout : checkouts) {
+                    checkout.get();
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            assertThat(failures.get()).isZero();
+            return CHECKOUTS / seconds;
+        }
+    }
+
+    private List<Long> seedCarts(ConfigurableApplicationContext context, long userId) {
+        BookService bookService = context.getBean(BookService.class);
+        CartService cartService = context.getBean(CartService.class);
+
+        List<Long> bookIds = new ArrayList<>(BOOKS);
+        for (int i = 0; i < BOOKS; i++) {
+            bookIds.add(bookService.saveBook(new BookDTO(null, "Load " + i, "Author", 10.0 + i % 50)).getId());
+        }
+
+        List<Long> cartIds = new ArrayList<>(CHECKOUTS);
+        for (int i = 0; i < CHECKOUTS; i++) {
+            Map<Long, Integer> lines = new HashMap<>();
+            for (int line = 0; line < LINES_PER_CART; line++) {
+                lines.put(bookIds.get((i * 7 + line * 13) % BOOKS), 1 + line % 3);
+            }
+            cartIds.add(cartService.creatCart(new CartDTO(null, userId, ItemMap.of(lines))).getCartId());
+        }
+        return cartIds;
+    }
+
+}
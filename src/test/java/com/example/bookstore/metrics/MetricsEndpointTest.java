@@ -0,0 +1,61 @@
+package com.example.bookstore.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void streamedExportCountsTheStatementsOfItsAsyncWriter() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/v1/books/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+
+        DistributionSummary statements = meterRegistry.get("bookstore.http.db.statements")
+                .tag("uri", "/api/v1/books/export")
+                .summary();
+        assertThat(statements.count()).isEqualTo(1);
+        assertThat(statements.totalAmount()).isPositive();
+    }
+
+    @Test
+    void scrapeEndpointExposesServiceStatementAndErrorMetrics() throws Exception {
+        mockMvc.perform(get("/api/v1/books/scroll").param("size", "5")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/order/{id}/total", Long.MAX_VALUE)).andExpect(status().isBadRequest());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertThat(scrape).contains("bookstore_service_calls_seconds{class=\"BookServiceImpl\",method=\"getBooksAfter\"");
+        assertThat(scrape).contains("bookstore_http_db_statements_count{method=\"GET\",uri=\"/api/v1/books/scroll\"}");
+        assertThat(scrape).contains("bookstore_errors_total{exception=\"RuntimeException\",status=\"400\"}");
+        assertThat(scrape).contains("hikaricp_connections_acquire_seconds");
+    }
+
+}
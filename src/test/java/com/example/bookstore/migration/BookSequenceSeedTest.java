@@ -0,0 +1,51 @@
+package com.example.bookstore.migration;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.repository.BookRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class BookSequenceSeedTest {
+
+    // The embedded database has a real book_seq sequence, so a table stands in for the one MySQL gets
+    private static final String TABLE = "book_seq_table";
+
+    @Autowired
+    private BookSequenceSeed seed;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @AfterEach
+    void dropTable() {
+        jdbcTemplate.execute("drop table if exists " + TABLE);
+    }
+
+    @Test
+    void withoutASequenceTableNothingChanges() {
+        assertThat(seed.seed(Book.ID_SEQUENCE)).isNull();
+    }
+
+    @Test
+    void sequenceTableIsMovedPastTheExistingBooksOnce() {
+        bookRepository.save(new Book(null, "Existing", "Author", 1.0));
+        long maxId = jdbcTemplate.queryForObject("select max(id) from books", Long.class);
+        jdbcTemplate.execute("create table " + TABLE + " (next_val bigint)");
+        jdbcTemplate.update("insert into " + TABLE + " values (1)");
+
+        assertThat(seed.seed(TABLE)).isEqualTo(maxId + Book.ID_ALLOCATION_SIZE + 1);
+        assertThat(seed.seed(TABLE)).isNull();
+        assertThat(jdbcTemplate.queryForObject("select next_val from " + TABLE, Long.class))
+                .isEqualTo(maxId + Book.ID_ALLOCATION_SIZE + 1);
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.example.bookstore.migration;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.model.Order;
+import com.example.bookstore.model.User;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.repository.OrderRepository;
+import com.example.bookstore.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class OrderLinesBackfillTest {
+
+    @Autowired
+    private OrderLinesBackfill backfill;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void dropLegacyTable() {
+        jdbcTemplate.execute("drop table if exists order_books");
+    }
+
+    @Test
+    void withoutTheLegacyTableNothingIsCopied() {
+        assertThat(backfill.backfill()).isZero();
+    }
+
+    @Test
+    void legacyLinesAreCopiedOnceWithoutPriceOrTitle() {
+        User user = userRepository.save(new User(null, "legacy-" + System.nanoTime(), "secret"));
+        Book first = bookRepository.save(new Book(null, "Legacy 1", "Author", 5.0));
+        Book second = bookRepository.save(new Book(null, "Legacy 2", "Author", 6.0));
+        Order legacy = orderRepository.save(Order.builder()
+                .user(user).lines(new HashMap<>()).total(16.0).orderDate(LocalDateTime.now()).build());
+        jdbcTemplate.execute("create table order_books (order_id bigint not null, books_key bigint not null, "
+                + "quantity integer, primary key (order_id, books_key))");
+        jdbcTemplate.update("insert into order_books values (?, ?, ?), (?, ?, ?)",
+                legacy.getOrderId(), first.getId(), 2, legacy.getOrderId(), second.getId(), 1);
+
+        assertThat(backfill.backfill()).isEqualTo(2);
+        assertThat(backfill.backfill()).isZero();
+
+        Map<Long, Integer> quantities = new HashMap<>();
+        jdbcTemplate.query("select book_id, quantity, unit_price, title from order_lines where order_id = ?",
+                rs -> {
+                    quantities.put(rs.getLong("book_id"), rs.getInt("quantity"));
+                    assertThat(rs.getObject("unit_price")).isNull();
+                    assertThat(rs.getString("title")).isNull();
+                }, legacy.getOrderId());
+        assertThat(quantities).isEqualTo(Map.of(first.getId(), 2, second.getId(), 1));
+    }
+
+}
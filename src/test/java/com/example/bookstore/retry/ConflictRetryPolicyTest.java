@@ -0,0 +1,126 @@
+package com.example.bookstore.retry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConflictRetryPolicyTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConflictRetryPolicy policy =
+            new ConflictRetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(4), 2, meterRegistry);
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    void conflictsAreRetriedUntilAnAttemptSucceeds() {
+        String result = policy.execute("test", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException(Object.class, 1L);
+            }
+            return "done";
+        });
+
+        assertThat(result).isEqualTo("done");
+        assertThat(attempts).hasValue(3);
+        assertThat(meterRegistry.counter(ConflictRetryPolicy.RETRIES, "operation", "test").count()).isEqualTo(2);
+    }
+
+    @Test
+    void lastConflictIsRethrownAfterMaxAttempts() {
+        assertThatThrownBy(() -> policy.execute("test", () -> {
+            attempts.incrementAndGet();
+            throw new CannotAcquireLockException("deadlock");
+        })).isInstanceOf(CannotAcquireLockException.class);
+
+        assertThat(attempts).hasValue(3);
+    }
+
+    @Test
+    void otherFailuresAreNotRetried() {
+        assertThatThrownBy(() -> policy.execute("test", () -> {
+            attempts.incrementAndGet();
+            throw new IllegalArgumentException("invalid");
+        })).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(attempts).hasValue(1);
+    }
+
+    @Test
+    void nothingIsRetriedInsideAnOuterTransaction() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        assertThatThrownBy(() -> policy.execute("test", () -> {
+            attempts.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException(Object.class, 1L);
+        })).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+
+        assertThat(attempts).hasValue(1);
+    }
+
+    @Test
+    void invalidPoliciesAreRejected() {
+        assertThatThrownBy(() -> new ConflictRetryPolicy(0, Duration.ZERO, Duration.ZERO, 2, meterRegistry))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ConflictRetryPolicy(3, Duration.ofSeconds(1), Duration.ZERO, 2, meterRegistry))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void aspectRetriesAnnotatedMethodsOnlyAndKeepsCheckedExceptions() throws IOException {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Operations(attempts));
+        factory.addAspect(new ConflictRetryAspect(policy));
+        Operations proxy = factory.getProxy();
+
+        assertThat(proxy.retried()).isEqualTo(2);
+        assertThatThrownBy(proxy::notRetried).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThatThrownBy(proxy::failsWithIo).isInstanceOf(IOException.class);
+        assertThat(attempts).hasValue(4);
+    }
+
+    static class Operations {
+
+        private final AtomicInteger attempts;
+
+        Operations(AtomicInteger attempts) {
+            this.attempts = attempts;
+        }
+
+        @RetryOnConflict
+        public int retried() {
+            int attempt = attempts.incrementAndGet();
+            if (attempt < 2) {
+                throw new ObjectOptimisticLockingFailureException(Object.class, 1L);
+            }
+            return attempt;
+        }
+
+        public void notRetried() {
+            attempts.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException(Object.class, 1L);
+        }
+
+        @RetryOnConflict
+        public void failsWithIo() throws IOException {
+            attempts.incrementAndGet();
+            throw new IOException("closed");
+        }
+
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.example.bookstore.service.cache;
+
+import com.example.bookstore.service.dto.CacheStatsDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsedEntryWhenFull() {
+        BoundedCache<Long, String> cache = new BoundedCache<>(2, Duration.ofMinutes(1));
+        cache.put(1L, "one");
+        cache.put(2L, "two");
+        cache.get(1L);
+        cache.put(3L, "three");
+
+        assertThat(cache.get(1L)).isEqualTo("one");
+        assertThat(cache.get(2L)).isNull();
+        assertThat(cache.get(3L)).isEqualTo("three");
+        assertThat(cache.stats().getEvictions()).isEqualTo(1);
+    }
+
+    @Test
+    void expiresEntriesOlderThanTimeToLive() throws InterruptedException {
+        BoundedCache<Long, String> cache = new BoundedCache<>(10, Duration.ofMillis(1));
+        cache.put(1L, "one");
+
+        Thread.sleep(5);
+
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.stats().getEvictions()).isEqualTo(1);
+        assertThat(cache.stats().getSize()).isZero();
+    }
+
+    @Test
+    void staysWithinTheMaximumSizeUnderConcurrentWrites() throws InterruptedException {
+        BoundedCache<Long, String> cache = new BoundedCache<>(1_000, Duration.ofMinutes(1));
+        int threads = 8;
+        int putsPerThread = 5_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            long first = (long) t * putsPerThread;
+            executor.execute(() -> {
+                for (long key = first; key < first + putsPerThread; key++) {
+                    cache.put(key, "value");
+                    cache.get(key - 1);
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        CacheStatsDTO stats = cache.stats();
+        assertThat(stats.getSize()).isEqualTo(1_000);
+        assertThat(stats.getEvictions()).isEqualTo((long) threads * putsPerThread - 1_000);
+    }
+
+    @Test
+    void countsHitsAndMisses() {
+        BoundedCache<Long, String> cache = new BoundedCache<>(10, Duration.ofMinutes(1));
+        cache.put(1L, "one");
+
+        cache.get(1L);
+        cache.get(1L);
+        cache.get(2L);
+        cache.invalidate(1L);
+        cache.get(1L);
+
+        CacheStatsDTO stats = cache.stats();
+        assertThat(stats.getHits()).isEqualTo(2);
+        assertThat(stats.getMisses()).isEqualTo(2);
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.example.bookstore.service.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ItemMapTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void keepsLinesSortedByBookId() {
+        ItemMap items = new ItemMap();
+        items.put(30L, 1);
+        items.put(10L, 2);
+        items.add(20L, 3);
+        items.add(10L, 5);
+
+        assertThat(items.keys()).containsExactly(10L, 20L, 30L);
+        assertThat(items.getOrDefault(10L, 0)).isEqualTo(7);
+        assertThat(items.getOrDefault(40L, 0)).isZero();
+
+        assertThat(items.remove(20L)).isTrue();
+        assertThat(items.remove(20L)).isFalse();
+        assertThat(items.toString()).isEqualTo("{10=7, 30=1}");
+    }
+
+    @Test
+    void copiesToAndFromBoxedMaps() {
+        Map<Long, Integer> boxed = new HashMap<>();
+        for (long id = 100; id > 0; id -= 7) {
+            boxed.put(id, (int) id % 5 + 1);
+        }
+
+        ItemMap items = ItemMap.of(boxed);
+
+        assertThat(items.size()).isEqualTo(boxed.size());
+        assertThat(items.keys()).isSorted();
+        assertThat(items.toMap()).isEqualTo(boxed);
+        assertThat(ItemMap.of(null).isEmpty()).isTrue();
+    }
+
+    @Test
+    void copiesLargeMapsOfScatteredIds() {
+        SplittableRandom random = new SplittableRandom(7);
+        Map<Long, Integer> boxed = new HashMap<>();
+        while (boxed.size() < 100_000) {
+            boxed.put(random.nextLong(1, Long.MAX_VALUE), random.nextInt(1, 10));
+        }
+
+        ItemMap items = ItemMap.of(boxed);
+
+        assertThat(items.keys()).isSorted();
+        assertThat(items.toMap()).isEqualTo(boxed);
+    }
+
+    @Test
+    void usesTheSameJsonAsABoxedMap() throws Exception {
+        Map<Long, Integer> boxed = Map.of(3L, 1, 12L, 4);
+        ItemMap items = ItemMap.of(boxed);
+
+        String json = objectMapper.writeValueAsString(items);
+
+        assertThat(objectMapper.readValue(json, Map.class)).isEqualTo(objectMapper.readValue(
+                objectMapper.writeValueAsString(boxed), Map.class));
+        assertThat(objectMapper.readValue(json, ItemMap.class)).isEqualTo(items);
+        assertThat(objectMapper.readValue("{\"cartId\":1,\"userId\":2,\"books\":{\"5\":2}}", CartDTO.class)
+                .getBooks().getOrDefault(5L, 0)).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsKeysThatAreNotBookIds() {
+        assertThatThrownBy(() -> objectMapper.readValue("{\"abc\":1}", ItemMap.class))
+                .hasMessageContaining("abc");
+    }
+
+}
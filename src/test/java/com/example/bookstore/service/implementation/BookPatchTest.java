@@ -0,0 +1,82 @@
+package com.example.bookstore.service.implementation;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.service.dto.BookDTO;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class BookPatchTest {
+
+    @Autowired
+    private BookServiceImpl bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void patchUpdatesTheGivenColumnsAndBumpsTheVersion() {
+        Book book = bookRepository.save(new Book(null, "Patched", "Author", 5.0));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        BookDTO updated = bookService.updateBookByFields(book.getId(), Map.of("price", 8));
+
+        // the book read from the database, then one versioned UPDATE
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(1);
+        assertThat(updated.getPrice()).isEqualTo(8.0);
+        assertThat(updated.getTitle()).isEqualTo("Patched");
+        assertThat(updated.getVersion()).isEqualTo(book.getVersion() + 1);
+        assertThat(bookRepository.findById(book.getId())).hasValueSatisfying(stored -> {
+            assertThat(stored.getPrice()).isEqualTo(8.0);
+            assertThat(stored.getVersion()).isEqualTo(book.getVersion() + 1);
+        });
+    }
+
+    @Test
+    void patchKeepsOtherBooksInTheSecondLevelCache() {
+        Book book = bookRepository.save(new Book(null, "Patched", "Author", 5.0));
+        Book other = bookRepository.save(new Book(null, "Bystander", "Author", 5.0));
+        bookRepository.findById(other.getId());
+
+        bookService.updateBookByFields(book.getId(), Map.of("title", "Patched again"));
+
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        assertThat(cache.containsEntity(Book.class, other.getId())).isTrue();
+    }
+
+    @Test
+    void invalidPatchLeavesTheBookUntouched() {
+        Book book = bookRepository.save(new Book(null, "Untouched", "Author", 5.0));
+
+        assertThatThrownBy(() -> bookService.updateBookByFields(book.getId(), Map.of("title", "New", "price", -3)))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(bookRepository.findById(book.getId())).hasValueSatisfying(stored -> {
+            assertThat(stored.getTitle()).isEqualTo("Untouched");
+            assertThat(stored.getVersion()).isEqualTo(book.getVersion());
+        });
+    }
+
+    @Test
+    void patchOfAMissingBookFails() {
+        assertThatThrownBy(() -> bookService.updateBookByFields(Long.MAX_VALUE, Map.of("title", "Ghost")))
+                .hasMessage("Book not found");
+    }
+
+}
@@ -0,0 +1,96 @@
+package com.example.bookstore.service.implementation;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.service.dto.BookDTO;
+import com.example.bookstore.service.dto.PageDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class BookSearchServiceTest {
+
+    @Autowired
+    private BookSearchServiceImpl bookSearchService;
+
+    @Autowired
+    private BookServiceImpl bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Test
+    void bookWritesAreSearchableOnceCommitted() {
+        bookSearchService.rebuildIndex();
+        String word = "quasar" + System.nanoTime();
+
+        BookDTO saved = bookService.saveBook(new BookDTO(null, "A " + word + " Guide", "Vera Rubin", 9.0));
+        assertThat(search(word).getItems()).extracting(BookDTO::getId).containsExactly(saved.getId());
+
+        bookService.updateBookByFields(saved.getId(), Map.of("title", "Renamed"));
+        assertThat(search(word).getTotalElements()).isZero();
+        assertThat(search("renamed rubin").getItems()).extracting(BookDTO::getId).contains(saved.getId());
+
+        bookService.deleteBook(saved.getId());
+        assertThat(search("renamed rubin").getItems()).extracting(BookDTO::getId).doesNotContain(saved.getId());
+    }
+
+    @Test
+    void likeFallbackMatchesTheSameBooks() {
+        String word = "nebula" + System.nanoTime();
+        BookDTO saved = bookService.saveBook(new BookDTO(null, "The " + word, "Carl Sagan", 4.0));
+        bookSearchService.rebuildIndex();
+
+        PageDTO<BookDTO> like = bookSearchService.searchWithLike(word, Paging.of(0, 10, Sort.unsorted()));
+
+        assertThat(like.getItems()).extracting(BookDTO::getId).containsExactly(saved.getId());
+        assertThat(search(word).getItems()).extracting(BookDTO::getId).containsExactly(saved.getId());
+    }
+
+    @Test
+    void refreshPicksUpBooksWrittenThroughAnotherInstance() {
+        String word = "pulsar" + System.nanoTime();
+        Book renamed = bookRepository.save(new Book(null, "Before " + word, "Jocelyn Bell", 5.0));
+        Book deleted = bookRepository.save(new Book(null, "Gone " + word, "Jocelyn Bell", 5.0));
+        bookSearchService.rebuildIndex();
+
+        // Repository writes skip this instance's index, like the writes of another instance
+        Book added = bookRepository.save(new Book(null, "Added " + word, "Jocelyn Bell", 5.0));
+        renamed.setTitle("After " + word);
+        bookRepository.save(renamed);
+        bookRepository.deleteById(deleted.getId());
+        assertThat(search(word).getItems()).extracting(BookDTO::getId)
+                .containsExactlyInAnyOrder(renamed.getId(), deleted.getId());
+
+        assertThat(bookSearchService.refreshIndex()).isGreaterThanOrEqualTo(3);
+
+        assertThat(search(word).getItems()).extracting(BookDTO::getId)
+                .containsExactlyInAnyOrder(renamed.getId(), added.getId());
+        assertThat(search("after " + word).getItems()).extracting(BookDTO::getId).containsExactly(renamed.getId());
+        assertThat(bookSearchService.refreshIndex()).isZero();
+    }
+
+    @Test
+    void deepPagesAreRejected() {
+        bookSearchService.rebuildIndex();
+
+        assertThatThrownBy(() -> bookSearchService.searchBooks("guide", 5_000_000, 500))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> bookSearchService.searchBooks("guide", Integer.MAX_VALUE, 500))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(bookSearchService.searchBooks("guide", BookSearchServiceImpl.MAX_RESULTS / 10 - 1, 10).getPage())
+                .isEqualTo(BookSearchServiceImpl.MAX_RESULTS / 10 - 1);
+    }
+
+    private PageDTO<BookDTO> search(String query) {
+        return bookSearchService.searchBooks(query, 0, 10);
+    }
+
+}
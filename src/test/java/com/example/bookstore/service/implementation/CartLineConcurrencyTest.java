@@ -0,0 +1,90 @@
+package com.example.bookstore.service.implementation;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.model.Cart;
+import com.example.bookstore.model.User;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.repository.CartRepository;
+import com.example.bookstore.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class CartLineConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ADDS_PER_THREAD = 50;
+
+    @Autowired
+    private CartServiceImpl cartService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void concurrentAddsToOneCartKeepExactQuantities() throws Exception {
+        User user = userRepository.save(new User(null, "concurrent-" + System.nanoTime(), "secret"));
+        Book existing = bookRepository.save(new Book(null, "Existing line", "Author", 1.0));
+        Book added = bookRepository.save(new Book(null, "New line", "Author", 2.0));
+        Map<Long, Integer> lines = new HashMap<>();
+        lines.put(existing.getId(), 1);
+        Long cartId = cartRepository.save(new Cart(null, lines, user)).getCartId();
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int thread = 0; thread < THREADS; thread++) {
+                Long bookId = thread % 2 == 0 ? existing.getId() : added.getId();
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                        cartService.addABookToCart(cartId, bookId, 1);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get();
+            }
+        }
+
+        Map<Long, Integer> books = cartService.viewBooksInCart(cartId).toMap();
+        assertThat(books.get(existing.getId())).isEqualTo(1 + THREADS / 2 * ADDS_PER_THREAD);
+        assertThat(books.get(added.getId())).isEqualTo(THREADS / 2 * ADDS_PER_THREAD);
+    }
+
+    @Test
+    void removeBookDeletesOnlyThatLine() {
+        User user = userRepository.save(new User(null, "remove-" + System.nanoTime(), "secret"));
+        Book kept = bookRepository.save(new Book(null, "Kept", "Author", 1.0));
+        Book removed = bookRepository.save(new Book(null, "Removed", "Author", 1.0));
+        Long cartId = cartRepository.save(new Cart(null, Map.of(kept.getId(), 2, removed.getId(), 3), user)).getCartId();
+
+        cartService.removeBook(cartId, removed.getId());
+
+        assertThat(cartService.viewBooksInCart(cartId).toMap()).containsExactly(Map.entry(kept.getId(), 2));
+        assertThatThrownBy(() -> cartService.removeBook(cartId, removed.getId()))
+                .hasMessage("Book not found in the cart");
+    }
+
+}
@@ -0,0 +1,130 @@
+package com.example.bookstore.service.implementation;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.model.Cart;
+import com.example.bookstore.model.User;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.repository.CartRepository;
+import com.example.bookstore.repository.UserRepository;
+import com.example.bookstore.service.dto.CartDTO;
+import com.example.bookstore.service.dto.CartOperationDTO;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static com.example.bookstore.service.dto.CartOperationDTO.Type.ADD;
+import static com.example.bookstore.service.dto.CartOperationDTO.Type.REMOVE;
+import static com.example.bookstore.service.dto.CartOperationDTO.Type.SET;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class CartOperationsTest {
+
+    @Autowired
+    private CartServiceImpl cartService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User user;
+    private List<Book> books;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User(null, "operations-" + System.nanoTime(), "secret"));
+        books = bookRepository.saveAll(IntStream.range(0, 40)
+                .mapToObj(i -> new Book(null, "Bulk " + i, "Author", 1.0 + i))
+                .toList());
+    }
+
+    @Test
+    void operationsAreAppliedInOrder() {
+        Cart cart = createCart(Map.of(id(0), 1, id(1), 2, id(2), 3));
+
+        CartDTO updated = cartService.applyOperations(cart.getCartId(), List.of(
+                operation(ADD, id(0), 2),
+                operation(SET, id(1), 5),
+                operation(SET, id(2), 0),
+                operation(ADD, id(3), 1),
+                operation(ADD, id(3), 1),
+                operation(REMOVE, id(0), null)));
+
+        assertThat(updated.getBooks().toMap()).containsExactlyInAnyOrderEntriesOf(Map.of(id(1), 5, id(3), 2));
+        assertThat(updated.getVersion()).isGreaterThan(cart.getVersion());
+        assertThat(cartService.displayCart(cart.getCartId())).hasValueSatisfying(stored ->
+                assertThat(stored.getBooks().toMap()).containsExactlyInAnyOrderEntriesOf(Map.of(id(1), 5, id(3), 2)));
+    }
+
+    @Test
+    void oneInvalidOperationLeavesTheCartUntouched() {
+        Cart cart = createCart(Map.of(id(0), 1));
+
+        assertThatThrownBy(() -> cartService.applyOperations(cart.getCartId(), List.of(
+                operation(ADD, id(1), 1),
+                operation(ADD, Long.MAX_VALUE, 1))))
+                .hasMessageContaining(String.valueOf(Long.MAX_VALUE));
+        assertThatThrownBy(() -> cartService.applyOperations(cart.getCartId(), List.of(
+                operation(ADD, id(1), 1),
+                operation(REMOVE, id(2), null))))
+                .hasMessageContaining("not found in the cart");
+        assertThatThrownBy(() -> cartService.applyOperations(cart.getCartId(), List.of(operation(ADD, id(1), 0))))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(cartService.displayCart(cart.getCartId())).hasValueSatisfying(stored -> {
+            assertThat(stored.getBooks().toMap()).containsExactlyEntriesOf(Map.of(id(0), 1));
+            assertThat(stored.getVersion()).isEqualTo(cart.getVersion());
+        });
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithTheNumberOfOperations() {
+        long few = statementsToApply(2);
+        long many = statementsToApply(books.size());
+
+        assertThat(many).isEqualTo(few);
+    }
+
+    private long statementsToApply(int lines) {
+        Cart cart = createCart(Map.of());
+        List<CartOperationDTO> operations = books.subList(0, lines).stream()
+                .map(book -> operation(ADD, book.getId(), 1))
+                .toList();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        cartService.applyOperations(cart.getCartId(), operations);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Cart createCart(Map<Long, Integer> lines) {
+        return cartRepository.save(new Cart(null, new HashMap<>(lines), user));
+    }
+
+    private Long id(int index) {
+        return books.get(index).getId();
+    }
+
+    private static CartOperationDTO operation(CartOperationDTO.Type type, Long bookId, Integer quantity) {
+        return new CartOperationDTO(type, bookId, quantity);
+    }
+
+}
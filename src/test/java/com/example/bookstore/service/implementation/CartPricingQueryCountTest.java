@@ -0,0 +1,91 @@
+package com.example.bookstore.service.implementation;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.model.Cart;
+import com.example.bookstore.model.User;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.repository.CartRepository;
+import com.example.bookstore.repository.UserRepository;
+import com.example.bookstore.service.dto.CartPricingDTO;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class CartPricingQueryCountTest {
+
+    @Autowired
+    private CartServiceImpl cartService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User user;
+    private List<Book> books;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        user = userRepository.save(new User(null, "pricing-" + System.nanoTime(), "secret"));
+        books = bookRepository.saveAll(IntStream.range(0, BookServiceImpl.LOOKUP_CHUNK_SIZE)
+                .mapToObj(i -> new Book(null, "Title " + i, "Author " + i, 1.0 + i))
+                .toList());
+    }
+
+    @Test
+    void priceCartIssuesSameNumberOfStatementsRegardlessOfCartSize() {
+        long small = statementsToPrice(createCart(1));
+        long medium = statementsToPrice(createCart(40));
+        long large = statementsToPrice(createCart(BookServiceImpl.LOOKUP_CHUNK_SIZE));
+
+        assertThat(medium).isEqualTo(small);
+        assertThat(large).isEqualTo(small);
+    }
+
+    @Test
+    void priceCartTotalsEveryLine() {
+        Cart cart = createCart(3);
+
+        CartPricingDTO pricing = cartService.priceCart(cart.getCartId());
+
+        double expected = 2 * books.get(0).getPrice() + 2 * books.get(1).getPrice() + 2 * books.get(2).getPrice();
+        assertThat(pricing.getTotal()).isEqualTo(expected);
+        assertThat(pricing.getUnitPrices()).hasSize(3);
+        assertThat(pricing.getUnpricedBookIds()).isEmpty();
+        assertThat(cartService.calculateTotalPrice(cart.getCartId())).isEqualTo(expected);
+    }
+
+    private long statementsToPrice(Cart cart) {
+        statistics.clear();
+        cartService.priceCart(cart.getCartId());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Cart createCart(int lines) {
+        Map<Long, Integer> items = new HashMap<>();
+        books.stream().limit(lines).forEach(book -> items.put(book.getId(), 2));
+        return cartRepository.save(new Cart(null, items, user));
+    }
+
+}
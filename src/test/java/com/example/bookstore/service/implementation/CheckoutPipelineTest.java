@@ -0,0 +1,117 @@
+package com.example.bookstore.service.implementation;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.model.Cart;
+import com.example.bookstore.model.CheckoutStatus;
+import com.example.bookstore.model.User;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.repository.CartRepository;
+import com.example.bookstore.repository.CheckoutRequestRepository;
+import com.example.bookstore.repository.OrderRepository;
+import com.example.bookstore.repository.UserRepository;
+import com.example.bookstore.service.dto.CheckoutStatusDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class CheckoutPipelineTest {
+
+    @Autowired
+    private CheckoutServiceImpl checkoutService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CheckoutRequestRepository checkoutRequestRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User(null, "checkout-" + System.nanoTime(), "secret"));
+        book = bookRepository.save(new Book(null, "Queued", "Author", 6.0));
+    }
+
+    @Test
+    void submittedCheckoutIsCompletedInTheBackground() throws InterruptedException {
+        Cart cart = cartRepository.save(new Cart(null, new HashMap<>(Map.of(book.getId(), 2)), user));
+
+        CheckoutStatusDTO submitted = checkoutService.submitCheckout(user.getId(), cart.getCartId());
+        CheckoutStatusDTO completed = awaitCompletion(submitted.getRequestId());
+
+        assertThat(completed.getStatus()).isEqualTo(CheckoutStatus.COMPLETED);
+        assertThat(orderRepository.findWithBooksByOrderId(completed.getOrderId())).hasValueSatisfying(order -> {
+            assertThat(order.getTotal()).isEqualTo(12.0);
+            assertThat(order.getBooks()).containsEntry(book.getId(), 2);
+        });
+        assertThat(cartRepository.existsById(cart.getCartId())).isFalse();
+    }
+
+    @Test
+    void resubmittingACartReturnsTheSameRequest() throws InterruptedException {
+        Cart cart = cartRepository.save(new Cart(null, new HashMap<>(Map.of(book.getId(), 1)), user));
+
+        CheckoutStatusDTO first = checkoutService.submitCheckout(user.getId(), cart.getCartId());
+        CheckoutStatusDTO second = checkoutService.submitCheckout(user.getId(), cart.getCartId());
+        awaitCompletion(first.getRequestId());
+        CheckoutStatusDTO third = checkoutService.submitCheckout(user.getId(), cart.getCartId());
+
+        assertThat(second.getRequestId()).isEqualTo(first.getRequestId());
+        assertThat(third.getRequestId()).isEqualTo(first.getRequestId());
+        assertThat(third.getStatus()).isEqualTo(CheckoutStatus.COMPLETED);
+    }
+
+    @Test
+    void completedRequestIsNeverFailedAfterwards() throws InterruptedException {
+        Cart cart = cartRepository.save(new Cart(null, new HashMap<>(Map.of(book.getId(), 1)), user));
+        CheckoutStatusDTO submitted = checkoutService.submitCheckout(user.getId(), cart.getCartId());
+        awaitCompletion(submitted.getRequestId());
+
+        assertThat(checkoutRequestRepository.fail(submitted.getRequestId(), "Late failure", LocalDateTime.now()))
+                .isZero();
+        assertThat(checkoutService.getCheckoutStatus(user.getId(), submitted.getRequestId()))
+                .map(CheckoutStatusDTO::getStatus).contains(CheckoutStatus.COMPLETED);
+    }
+
+    @Test
+    void cartOfAnotherUserIsRejected() {
+        User other = userRepository.save(new User(null, "checkout-other-" + System.nanoTime(), "secret"));
+        Cart cart = cartRepository.save(new Cart(null, new HashMap<>(Map.of(book.getId(), 1)), other));
+
+        assertThatThrownBy(() -> checkoutService.submitCheckout(user.getId(), cart.getCartId()))
+                .isInstanceOf(RuntimeException.class);
+        assertThat(checkoutService.getCheckoutStatus(user.getId(), Long.MAX_VALUE)).isEmpty();
+    }
+
+    private CheckoutStatusDTO awaitCompletion(Long requestId) throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            CheckoutStatusDTO status = checkoutService.getCheckoutStatus(user.getId(), requestId).orElseThrow();
+            if (status.getStatus() == CheckoutStatus.COMPLETED || status.getStatus() == CheckoutStatus.FAILED) {
+                return status;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Checkout request " + requestId + " was not processed");
+    }
+
+}
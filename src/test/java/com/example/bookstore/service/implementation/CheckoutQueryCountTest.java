@@ -0,0 +1,90 @@
+package com.example.bookstore.service.implementation;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.model.Cart;
+import com.example.bookstore.model.User;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.repository.CartRepository;
+import com.example.bookstore.repository.UserRepository;
+import com.example.bookstore.service.dto.OrderDTO;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class CheckoutQueryCountTest {
+
+    @Autowired
+    private UserServiceImpl userService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User user;
+    private List<Book> books;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        user = userRepository.save(new User(null, "checkout-" + System.nanoTime(), "secret"));
+        books = bookRepository.saveAll(IntStream.range(0, 3)
+                .mapToObj(i -> new Book(null, "Checkout " + i, "Author", 2.0 + i))
+                .toList());
+    }
+
+    @Test
+    void checkoutLoadsTheCartOnceAndNeverTheUser() {
+        Cart cart = createCart();
+        statistics.clear();
+
+        OrderDTO order = userService.confirmAndConvertCartToOrder(user.getId(), cart.getCartId()).orElseThrow();
+
+        // cart with lines, book prices, order, batched order lines, the cart lines and the cart deleted in bulk,
+        // then daily sales and one daily book sales upsert per line
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(10);
+        assertThat(statistics.getEntityStatistics(Cart.class.getName()).getLoadCount()).isEqualTo(1);
+        assertThat(statistics.getEntityStatistics(User.class.getName()).getLoadCount()).isZero();
+        assertThat(order.getTotal()).isEqualTo(2 * 2.0 + 2 * 3.0 + 2 * 4.0);
+        assertThat(cartRepository.existsById(cart.getCartId())).isFalse();
+    }
+
+    @Test
+    void cartOfAnotherUserIsRejected() {
+        Cart cart = createCart();
+        User other = userRepository.save(new User(null, "other-" + System.nanoTime(), "secret"));
+
+        assertThatThrownBy(() -> userService.confirmAndConvertCartToOrder(other.getId(), cart.getCartId()))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Cart not found for the user with id: " + other.getId());
+        assertThat(cartRepository.existsById(cart.getCartId())).isTrue();
+    }
+
+    private Cart createCart() {
+        Map<Long, Integer> lines = new HashMap<>();
+        books.forEach(book -> lines.put(book.getId(), 2));
+        return cartRepository.save(new Cart(null, lines, user));
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.example.bookstore.service.implementation;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.model.Cart;
+import com.example.bookstore.model.Order;
+import com.example.bookstore.model.OrderLine;
+import com.example.bookstore.model.User;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.repository.CartRepository;
+import com.example.bookstore.repository.OrderRepository;
+import com.example.bookstore.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ListingQueryCountTest {
+
+    private static final LocalDate ORDER_DAY = LocalDate.of(2020, 2, 29);
+
+    @Autowired
+    private CartServiceImpl cartService;
+
+    @Autowired
+    private OrderServiceImpl orderService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Book first;
+    private Book second;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        first = bookRepository.save(new Book(null, "First", "Author", 3.0));
+        second = bookRepository.save(new Book(null, "Second", "Author", 4.0));
+    }
+
+    @Test
+    void getAllCartsUsesOneStatement() {
+        createCartsAndOrders(3);
+        assertThat(statementsFor(() -> cartService.getAllCarts())).isEqualTo(1);
+
+        createCartsAndOrders(12);
+        assertThat(statementsFor(() -> cartService.getAllCarts())).isEqualTo(1);
+    }
+
+    @Test
+    void allOrdersUsesOneStatement() {
+        createCartsAndOrders(3);
+        assertThat(statementsFor(() -> orderService.allOrders())).isEqualTo(1);
+
+        createCartsAndOrders(12);
+        assertThat(statementsFor(() -> orderService.allOrders())).isEqualTo(1);
+    }
+
+    @Test
+    void filterOrdersByDateUsesOneStatement() {
+        createCartsAndOrders(3);
+        assertThat(statementsFor(() -> orderService.filterOrdersByDate(ORDER_DAY))).isEqualTo(1);
+
+        createCartsAndOrders(12);
+        assertThat(statementsFor(() -> orderService.filterOrdersByDate(ORDER_DAY))).isEqualTo(1);
+    }
+
+    @Test
+    void pagedListingsUseAFixedNumberOfStatements() {
+        createCartsAndOrders(12);
+
+        assertThat(statementsFor(() -> cartService.getCarts(PageRequest.of(0, 10)))).isEqualTo(3);
+        assertThat(statementsFor(() -> cartService.getCartsAfter(null, 10))).isEqualTo(2);
+        assertThat(statementsFor(() -> orderService.getOrders(PageRequest.of(0, 10)))).isEqualTo(3);
+        assertThat(statementsFor(() -> orderService.getOrdersAfter(null, 10))).isEqualTo(2);
+    }
+
+    private long statementsFor(Runnable listing) {
+        statistics.clear();
+        listing.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void createCartsAndOrders(int count) {
+        for (int i = 0; i < count; i++) {
+            User user = userRepository.save(new User(null, "listing-" + System.nanoTime(), "secret"));
+            cartRepository.save(new Cart(null, Map.of(first.getId(), 1, second.getId(), 2), user));
+            orderRepository.save(Order.builder()
+                    .user(user)
+                    .lines(Map.of(first.getId(), new OrderLine(1, first.getPrice(), first.getTitle()),
+                            second.getId(), new OrderLine(2, second.getPrice(), second.getTitle())))
+                    .total(11.0)
+                    .orderDate(ORDER_DAY.atTime(12, 0))
+                    .build());
+        }
+    }
+
+}
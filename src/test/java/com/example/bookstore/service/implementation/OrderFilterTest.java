@@ -0,0 +1,116 @@
+package com.example.bookstore.service.implementation;
+
+import com.example.bookstore.model.Order;
+import com.example.bookstore.model.User;
+import com.example.bookstore.repository.OrderRepository;
+import com.example.bookstore.repository.UserRepository;
+import com.example.bookstore.service.dto.OrderDTO;
+import com.example.bookstore.service.dto.SliceDTO;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class OrderFilterTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2011, 3, 1);
+
+    @Autowired
+    private OrderServiceImpl orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        alice = userRepository.save(new User(null, "filter-alice-" + System.nanoTime(), "secret"));
+        bob = userRepository.save(new User(null, "filter-bob-" + System.nanoTime(), "secret"));
+        for (int day = 0; day < 5; day++) {
+            saveOrder(alice, FIRST_DAY.plusDays(day));
+            saveOrder(bob, FIRST_DAY.plusDays(day));
+        }
+    }
+
+    @Test
+    void ordersOfAUserAreReturnedNewestFirstInSlices() {
+        SliceDTO<OrderDTO> first = orderService.findOrders(alice.getId(), null, null, 0, 3);
+        SliceDTO<OrderDTO> second = orderService.findOrders(alice.getId(), null, null, 1, 3);
+
+        assertThat(first.getItems()).extracting(OrderDTO::getOrderDate)
+                .containsExactly(atNoon(4), atNoon(3), atNoon(2));
+        assertThat(first.isHasNext()).isTrue();
+        assertThat(second.getItems()).extracting(OrderDTO::getOrderDate)
+                .containsExactly(atNoon(1), atNoon(0));
+        assertThat(second.isHasNext()).isFalse();
+    }
+
+    @Test
+    void dateRangeIncludesBothEndDays() {
+        SliceDTO<OrderDTO> orders = orderService.findOrders(null, FIRST_DAY.plusDays(1), FIRST_DAY.plusDays(2), 0, 500);
+
+        assertThat(orders.getItems()).extracting(OrderDTO::getOrderDate)
+                .containsOnly(atNoon(1), atNoon(2));
+        assertThat(orders.getItems()).filteredOn(order -> order.getUserId().equals(alice.getId()))
+                .extracting(OrderDTO::getOrderDate)
+                .containsExactly(atNoon(2), atNoon(1));
+    }
+
+    @Test
+    void userAndDateRangeAreCombined() {
+        SliceDTO<OrderDTO> orders = orderService.findOrders(bob.getId(), FIRST_DAY.plusDays(3), null, 0, 10);
+
+        assertThat(orders.getItems()).extracting(OrderDTO::getOrderDate)
+                .containsExactly(atNoon(4), atNoon(3));
+    }
+
+    @Test
+    void aFilterIsRequired() {
+        assertThatThrownBy(() -> orderService.findOrders(null, null, null, 0, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> orderService.findOrders(null, FIRST_DAY.plusDays(1), FIRST_DAY, 0, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void compositeIndexesAreCreated() {
+        @SuppressWarnings("unchecked")
+        List<String> indexes = entityManager.createNativeQuery(
+                        "select index_name from information_schema.indexes where table_name = 'orders'")
+                .getResultList();
+
+        assertThat(indexes).contains("idx_orders_user_date", "idx_orders_date");
+    }
+
+    private LocalDateTime atNoon(int day) {
+        return FIRST_DAY.plusDays(day).atTime(12, 0);
+    }
+
+    private void saveOrder(User user, LocalDate day) {
+        orderRepository.save(Order.builder()
+                .user(user)
+                .lines(Map.of())
+                .total(1.0)
+                .orderDate(day.atTime(12, 0))
+                .build());
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.example.bookstore.service.implementation;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.model.Cart;
+import com.example.bookstore.model.Order;
+import com.example.bookstore.model.User;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.repository.CartRepository;
+import com.example.bookstore.repository.UserRepository;
+import com.example.bookstore.service.dto.OrderDetailDTO;
+import com.example.bookstore.service.dto.OrderLineDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+class OrderLineSnapshotTest {
+
+    @Autowired
+    private OrderServiceImpl orderService;
+
+    @Autowired
+    private BookServiceImpl bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void orderKeepsThePricesAndTitlesOfCheckout() {
+        User user = userRepository.save(new User(null, "snapshot-" + System.nanoTime(), "secret"));
+        Book first = bookRepository.save(new Book(null, "First Edition", "Author", 10.0));
+        Book second = bookRepository.save(new Book(null, "Second Edition", "Author", 4.5));
+        Cart cart = cartRepository.save(new Cart(null, new HashMap<>(Map.of(first.getId(), 2, second.getId(), 1)), user));
+
+        Order order = orderService.convertCartToOrder(user.getId(), cart.getCartId()).orElseThrow();
+        bookService.updateBookByFields(first.getId(), Map.of("price", 99.0, "title", "Reprint"));
+        bookService.deleteBook(second.getId());
+
+        OrderDetailDTO detail = orderService.getOrderDetail(order.getOrderId()).orElseThrow();
+
+        assertThat(detail.getTotal()).isEqualTo(24.5);
+        assertThat(detail.getLines()).extracting(OrderLineDTO::getBookId, OrderLineDTO::getTitle,
+                        OrderLineDTO::getUnitPrice, OrderLineDTO::getQuantity, OrderLineDTO::getLineTotal)
+                .containsExactly(
+                        tuple(first.getId(), "First Edition", 10.0, 2, 20.0),
+                        tuple(second.getId(), "Second Edition", 4.5, 1, 4.5));
+        assertThat(orderService.getOrderById(order.getOrderId()).orElseThrow().getBooks().toMap())
+                .containsExactlyInAnyOrderEntriesOf(Map.of(first.getId(), 2, second.getId(), 1));
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.example.bookstore.service.implementation;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.model.Cart;
+import com.example.bookstore.model.Order;
+import com.example.bookstore.model.OrderLine;
+import com.example.bookstore.model.User;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.repository.CartRepository;
+import com.example.bookstore.repository.OrderRepository;
+import com.example.bookstore.repository.UserRepository;
+import com.example.bookstore.service.dto.DailySalesDTO;
+import com.example.bookstore.service.dto.MonthlySalesDTO;
+import com.example.bookstore.service.dto.SalesRebuildReportDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class SalesReportTest {
+
+    private static final LocalDate REBUILD_DAY = LocalDate.of(2012, 5, 30);
+
+    @Autowired
+    private SalesReportServiceImpl salesReportService;
+
+    @Autowired
+    private OrderServiceImpl orderService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User(null, "sales-" + System.nanoTime(), "secret"));
+        book = bookRepository.save(new Book(null, "Sales", "Author", 2.5));
+    }
+
+    @Test
+    void checkoutAndCancelAdjustTheRollupOfTheDay() {
+        LocalDate today = LocalDate.now();
+        DailySalesDTO before = salesOf(today);
+        Cart cart = cartRepository.save(new Cart(null, new HashMap<>(Map.of(book.getId(), 4)), user));
+
+        Order order = orderService.convertCartToOrder(user.getId(), cart.getCartId()).orElseThrow();
+
+        DailySalesDTO placed = salesOf(today);
+        assertThat(placed.getOrders()).isEqualTo(before.getOrders() + 1);
+        assertThat(placed.getRevenue()).isEqualTo(before.getRevenue() + 10.0);
+        assertThat(placed.getBooks()).containsEntry(book.getId(), 4L);
+
+        orderService.cancelOrder(order.getOrderId());
+
+        DailySalesDTO cancelled = salesOf(today);
+        assertThat(cancelled.getOrders()).isEqualTo(before.getOrders());
+        assertThat(cancelled.getRevenue()).isEqualTo(before.getRevenue());
+        assertThat(cancelled.getBooks()).doesNotContainKey(book.getId());
+    }
+
+    @Test
+    void rebuildRegeneratesRollupsFromOrders() {
+        saveOrder(REBUILD_DAY, 3, 7.5);
+        saveOrder(REBUILD_DAY, 1, 2.5);
+        saveOrder(REBUILD_DAY.plusDays(3), 2, 5.0);
+
+        SalesRebuildReportDTO report = salesReportService.rebuild(REBUILD_DAY.withDayOfMonth(1), REBUILD_DAY.plusDays(5));
+        salesReportService.rebuild(REBUILD_DAY.withDayOfMonth(1), REBUILD_DAY.plusDays(5));
+
+        assertThat(report.getDays()).isEqualTo(35);
+        assertThat(report.getChunks()).isEqualTo(18);
+
+        List<DailySalesDTO> daily = salesReportService.getDailySales(REBUILD_DAY.minusDays(1), REBUILD_DAY.plusDays(5));
+        assertThat(daily).extracting(DailySalesDTO::getDate).containsExactly(REBUILD_DAY, REBUILD_DAY.plusDays(3));
+        assertThat(daily.get(0).getOrders()).isEqualTo(2);
+        assertThat(daily.get(0).getRevenue()).isEqualTo(10.0);
+        assertThat(daily.get(0).getUnits()).isEqualTo(4);
+        assertThat(daily.get(1).getBooks()).containsExactly(Map.entry(book.getId(), 2L));
+
+        List<MonthlySalesDTO> monthly = salesReportService.getMonthlySales(YearMonth.of(2012, 5), YearMonth.of(2012, 6));
+        assertThat(monthly).extracting(MonthlySalesDTO::getMonth).containsExactly(YearMonth.of(2012, 5), YearMonth.of(2012, 6));
+        assertThat(monthly.get(0).getOrders()).isEqualTo(2);
+        assertThat(monthly.get(1).getRevenue()).isEqualTo(5.0);
+    }
+
+    private DailySalesDTO salesOf(LocalDate day) {
+        return salesReportService.getDailySales(day, day).stream()
+                .findFirst()
+                .orElseGet(() -> new DailySalesDTO(day, 0, 0.0, 0, Map.of()));
+    }
+
+    private void saveOrder(LocalDate day, int quantity, double total) {
+        orderRepository.save(Order.builder()
+                .user(user)
+                .lines(Map.of(book.getId(), new OrderLine(quantity, total / quantity, book.getTitle())))
+                .total(total)
+                .orderDate(day.atTime(9, 30))
+                .build());
+    }
+
+}
@@ -0,0 +1,143 @@
+package com.example.bookstore.service.implementation;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.model.Cart;
+import com.example.bookstore.model.User;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.repository.CartRepository;
+import com.example.bookstore.repository.UserRepository;
+import com.example.bookstore.service.dto.BookDTO;
+import com.example.bookstore.service.dto.CartDTO;
+import com.example.bookstore.service.dto.ItemMap;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class SecondLevelCacheTest {
+
+    @Autowired
+    private BookServiceImpl bookService;
+
+    @Autowired
+    private CartServiceImpl cartService;
+
+    @Autowired
+    private UserServiceImpl userService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Cache cache;
+    private User user;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        statistics = sessionFactory.getStatistics();
+        cache = sessionFactory.getCache();
+        user = userRepository.save(new User(null, "cached-" + System.nanoTime(), "secret"));
+        book = bookRepository.save(new Book(null, "Cached", "Author", 12.5));
+    }
+
+    @Test
+    void repeatedUserLookupsAcrossTransactionsSkipSql() {
+        cache.evict(User.class, user.getId());
+
+        assertThat(statementsToRun(() -> userRepository.findById(user.getId()))).isEqualTo(1);
+        assertThat(statementsToRun(() -> userRepository.findById(user.getId()))).isZero();
+        assertThat(statementsToRun(() -> cartService.creatCart(new CartDTO(null, user.getId(), new ItemMap()))))
+                .isEqualTo(1);
+        assertThat(statistics.getDomainDataRegionStatistics("users").getHitCount()).isPositive();
+    }
+
+    @Test
+    void repeatedBookLookupsAcrossTransactionsSkipSql() {
+        cache.evict(Book.class, book.getId());
+
+        assertThat(statementsToRun(() -> bookRepository.findById(book.getId()))).isEqualTo(1);
+        assertThat(statementsToRun(() -> bookRepository.findById(book.getId()))).isZero();
+        assertThat(statistics.getDomainDataRegionStatistics("books").getHitCount()).isPositive();
+    }
+
+    @Test
+    void bookUpdatesAreVisibleToTheNextLookup() {
+        bookRepository.findById(book.getId());
+
+        bookService.updateBookByFields(book.getId(), Map.of("title", "Renamed"));
+
+        assertThat(bookRepository.findById(book.getId())).get().extracting(Book::getTitle).isEqualTo("Renamed");
+    }
+
+    @Test
+    void nativeCartLineStatementsKeepCachedBooksAndUsers() {
+        Cart cart = cartRepository.save(new Cart(null, new HashMap<>(), user));
+        bookRepository.findById(book.getId());
+        userRepository.findById(user.getId());
+
+        cartService.addABookToCart(cart.getCartId(), book.getId(), 2);
+        cartService.removeBook(cart.getCartId(), book.getId());
+
+        assertThat(cache.containsEntity(Book.class, book.getId())).isTrue();
+        assertThat(cache.containsEntity(User.class, user.getId())).isTrue();
+
+        Book other = bookRepository.save(new Book(null, "Not in the cart", "Author", 1.0));
+        bookRepository.findById(other.getId());
+        cartService.addABookToCart(cart.getCartId(), book.getId(), 1);
+        userService.confirmAndConvertCartToOrder(user.getId(), cart.getCartId());
+
+        assertThat(cache.containsEntity(Book.class, other.getId())).isTrue();
+        assertThat(cache.containsEntity(User.class, user.getId())).isTrue();
+    }
+
+    @Test
+    void catalogVersionMovesForwardOnceForEveryTransactionThatWritesBooks() {
+        long version = Long.parseLong(bookService.getCatalogVersion());
+
+        bookService.saveBook(new BookDTO(null, "Another", "Author", 3.0));
+        assertThat(Long.parseLong(bookService.getCatalogVersion())).isEqualTo(version + 1);
+
+        bookRepository.saveAll(List.of(new Book(null, "First", "Author", 1.0), new Book(null, "Second", "Author", 2.0)));
+        assertThat(Long.parseLong(bookService.getCatalogVersion())).isEqualTo(version + 2);
+
+        bookService.updateBookByFields(book.getId(), Map.of("price", 13.0));
+        bookService.deleteBook(book.getId());
+        assertThat(Long.parseLong(bookService.getCatalogVersion())).isEqualTo(version + 4);
+    }
+
+    @Test
+    void catalogVersionIsReadFromTheDatabaseEveryTime() {
+        bookService.getCatalogVersion();
+
+        assertThat(statementsToRun(bookService::getCatalogVersion)).isEqualTo(1);
+    }
+
+    private long statementsToRun(Runnable lookup) {
+        statistics.clear();
+        lookup.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+}
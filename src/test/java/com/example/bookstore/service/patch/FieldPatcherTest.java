@@ -0,0 +1,70 @@
+package com.example.bookstore.service.patch;
+
+import com.example.bookstore.model.Book;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FieldPatcherTest {
+
+    private static final FieldPatcher<Book> PATCHER = FieldPatcher.forEntity(Book.class, "id", "version")
+            .field("title", PatchConverters.text(20), Book::setTitle)
+            .field("price", PatchConverters.nonNegativeDouble(), Book::setPrice)
+            .build();
+
+    @Test
+    void convertsEveryKindOfJsonNumber() {
+        Book book = new Book(1L, "Title", "Author", 1.0);
+
+        PATCHER.compile(Map.of("price", 12)).applyTo(book);
+        assertThat(book.getPrice()).isEqualTo(12.0);
+
+        PATCHER.compile(Map.of("price", 12L)).applyTo(book);
+        assertThat(book.getPrice()).isEqualTo(12.0);
+
+        PATCHER.compile(Map.of("price", "7.25")).applyTo(book);
+        assertThat(book.getPrice()).isEqualTo(7.25);
+    }
+
+    @Test
+    void appliesOnlyThePatchedFields() {
+        Book book = new Book(1L, "Title", "Author", 1.0);
+
+        PATCHER.compile(Map.of("title", "  New Title ")).applyTo(book);
+
+        assertThat(book.getTitle()).isEqualTo("New Title");
+        assertThat(book.getAuthor()).isEqualTo("Author");
+        assertThat(book.getPrice()).isEqualTo(1.0);
+    }
+
+    @Test
+    void rejectsInvalidPatchesBeforeApplyingAnything() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("title", "Valid");
+        fields.put("price", -1);
+
+        assertThatThrownBy(() -> PATCHER.compile(fields)).isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("price");
+        assertThatThrownBy(() -> PATCHER.compile(Map.of("price", "cheap")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PATCHER.compile(Map.of("title", " ")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PATCHER.compile(Map.of("title", "A title that is far too long")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsUnknownAndReadOnlyFields() {
+        assertThatThrownBy(() -> PATCHER.compile(Map.of("isbn", "123"))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PATCHER.compile(Map.of("version", 0))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PATCHER.compile(Map.of("id", 2))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> FieldPatcher.forEntity(Book.class, "id", "version")
+                .field("version", PatchConverters.nonNegativeDouble(), (book, value) -> { }))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,134 @@
+package com.example.bookstore.service.search;
+
+import com.example.bookstore.service.dto.BookDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookSearchIndexTest {
+
+    @Test
+    void matchesWordPrefixesCaseAndAccentInsensitively() {
+        BookSearchIndex index = new BookSearchIndex();
+        index.put(book(1L, "The Hobbit", "J. R. R. Tolkien"));
+        index.put(book(2L, "Les Misérables", "Victor Hugo"));
+
+        assertThat(index.search("hob", 0, 10).items()).extracting(BookDTO::getId).containsExactly(1L);
+        assertThat(index.search("TOLK", 0, 10).items()).extracting(BookDTO::getId).containsExactly(1L);
+        assertThat(index.search("miserables", 0, 10).items()).extracting(BookDTO::getId).containsExactly(2L);
+        assertThat(index.search("obbit", 0, 10).total()).isZero();
+    }
+
+    @Test
+    void everyTermMustMatch() {
+        BookSearchIndex index = new BookSearchIndex();
+        index.put(book(1L, "Dune", "Frank Herbert"));
+        index.put(book(2L, "Dune Messiah", "Frank Herbert"));
+
+        assertThat(index.search("dune mess", 0, 10).items()).extracting(BookDTO::getId).containsExactly(2L);
+        assertThat(index.search("dune tolkien", 0, 10).total()).isZero();
+    }
+
+    @Test
+    void shortTermsOnlyMatchWholeWords() {
+        BookSearchIndex index = new BookSearchIndex();
+        index.put(book(1L, "Go Set a Watchman", "Harper Lee"));
+        index.put(book(2L, "Gone Girl", "Gillian Flynn"));
+
+        assertThat(index.search("go", 0, 10).items()).extracting(BookDTO::getId).containsExactly(1L);
+        assertThat(index.search("gon", 0, 10).items()).extracting(BookDTO::getId).containsExactly(2L);
+        assertThat(index.search("girl go", 0, 10).total()).isZero();
+        assertThat(index.search("watch go", 0, 10).items()).extracting(BookDTO::getId).containsExactly(1L);
+        assertThat(index.search("gill fly", 0, 10).items()).extracting(BookDTO::getId).containsExactly(2L);
+    }
+
+    @Test
+    void ranksTitleWordsAboveTitlePrefixesAndAuthors() {
+        BookSearchIndex index = new BookSearchIndex();
+        index.put(book(1L, "Notes", "Rose Rosewood"));
+        index.put(book(2L, "Roses of May", "Anne Smith"));
+        index.put(book(3L, "The Rose", "Anne Smith"));
+
+        assertThat(index.search("rose", 0, 10).items()).extracting(BookDTO::getId).containsExactly(3L, 2L, 1L);
+        assertThat(index.search("rose", 1, 1).items()).extracting(BookDTO::getId).containsExactly(2L);
+        assertThat(index.search("rose", 1, 1).total()).isEqualTo(3);
+    }
+
+    @Test
+    void hitsCarryTheVersionOfTheBook() {
+        BookSearchIndex index = new BookSearchIndex();
+        BookDTO book = book(1L, "Versioned", "Author");
+        book.setVersion(4L);
+        index.put(book);
+
+        assertThat(index.search("versioned", 0, 10).items()).extracting(BookDTO::getVersion).containsExactly(4L);
+    }
+
+    @Test
+    void updatesAndRemovalsReplaceOldTokens() {
+        BookSearchIndex index = new BookSearchIndex();
+        index.put(book(1L, "Draft", "Author"));
+        index.put(book(1L, "Final", "Author"));
+
+        assertThat(index.search("draft", 0, 10).total()).isZero();
+        assertThat(index.search("final", 0, 10).total()).isEqualTo(1);
+
+        index.remove(1L);
+
+        assertThat(index.search("final", 0, 10).total()).isZero();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void loadDoesNotOverwriteBooksWrittenSinceItBegan() {
+        BookSearchIndex index = new BookSearchIndex();
+        index.beginLoad();
+        index.put(book(1L, "Renamed", "Author"));
+        index.remove(2L);
+
+        index.load(book(1L, "Original", "Author"));
+        index.load(book(2L, "Deleted", "Author"));
+        index.load(book(3L, "Untouched", "Author"));
+        index.endLoad();
+
+        assertThat(index.search("renamed", 0, 10).total()).isEqualTo(1);
+        assertThat(index.search("original", 0, 10).total()).isZero();
+        assertThat(index.search("deleted", 0, 10).total()).isZero();
+        assertThat(index.search("untouched", 0, 10).total()).isEqualTo(1);
+    }
+
+    @Test
+    void loadRemovesUnreadBooksUnlessWrittenSinceItBegan() {
+        BookSearchIndex index = new BookSearchIndex();
+        index.put(book(1L, "Kept", "Author"));
+        index.put(book(2L, "Deleted", "Author"));
+        index.beginLoad();
+        index.put(book(3L, "Added", "Author"));
+
+        assertThat(index.removeUnread(Set.of(1L))).isEqualTo(1);
+        index.endLoad();
+
+        assertThat(index.search("kept", 0, 10).total()).isEqualTo(1);
+        assertThat(index.search("deleted", 0, 10).total()).isZero();
+        assertThat(index.search("added", 0, 10).total()).isEqualTo(1);
+    }
+
+    @Test
+    void containsOnlyTheIndexedVersion() {
+        BookSearchIndex index = new BookSearchIndex();
+        BookDTO book = book(1L, "Versioned", "Author");
+        book.setVersion(2L);
+        index.put(book);
+
+        assertThat(index.contains(1L, 2L)).isTrue();
+        assertThat(index.contains(1L, 3L)).isFalse();
+        assertThat(index.contains(2L, 2L)).isFalse();
+    }
+
+    private static BookDTO book(Long id, String title, String author) {
+        return new BookDTO(id, title, author, 1.0);
+    }
+
+}